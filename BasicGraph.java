@@ -101,12 +101,10 @@ public class BasicGraph<T> implements BasicGraphADT<T> {
    *********************/
   public int getNumEdges() {
     int totalNeighbor = 0;
-    int addVal;
     // Compute the sum of edges of all vertices. The number of 
     // edges is half of this sum.
-    for (int i = 0; i < this.labelList.size(); i++) {
-      addVal = this.adjList.get(this.labelList.get(i)).getNeighbors().size();
-      totalNeighbor = totalNeighbor + addVal;
+    for (Vertex<T> vert : this.adjList.values()) {
+      totalNeighbor = totalNeighbor + vert.getNeighbors().size();
     }
     return totalNeighbor/2;
   }
@@ -123,25 +121,22 @@ public class BasicGraph<T> implements BasicGraphADT<T> {
    * Convert the hashtable to strings
    *************/
   public String toString() {
-    String s = "";
-    String w = "";
-    int listSize;
-    List<Vertex<T>> tempNeighbor;
-    for (int i = 0; i < this.labelList.size(); i++) {
+    StringBuilder s = new StringBuilder();
+    // walk the labels with an iterator; get(i) on a LinkedList is linear
+    for (T label : this.labelList) {
+      Vertex<T> vert = this.adjList.get(label);
+      s.append('\n').append(label).append(' ');
       // this part checks if a weight is assigned to a vertex
-      if (this.adjList.get(this.labelList.get(i)).getWeight()
-                                    !=Double.POSITIVE_INFINITY) {
-        w = "" + this.adjList.get(this.labelList.get(i)).getWeight();
-      } else {w = "";}
-      s = s + "\n" + this.labelList.get(i) + " " + w + " >>> ";
-      tempNeighbor = this.adjList.get(this.labelList.get(i)).getNeighbors();
-      listSize = tempNeighbor.size();
+      if (vert.getWeight() != Double.POSITIVE_INFINITY) {
+        s.append(vert.getWeight());
+      }
+      s.append(" >>> ");
       // convert each neighbor name to a string and append it to s
-      for (int j = 0; j < listSize; j++) {
-        s = s + " " + tempNeighbor.get(j).getLabel();
+      for (Vertex<T> nbr : vert.getNeighbors()) {
+        s.append(' ').append(nbr.getLabel());
       }
-    }  
-    return s;
+    }
+    return s.toString();
   }
 
   /**************
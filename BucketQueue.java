@@ -0,0 +1,167 @@
+import java.util.NoSuchElementException;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Monotone bucket queue for Dial's algorithm over int ids 0 ..
+ * capacity - 1 with small non-negative integer keys.
+ *
+ * When every edge costs at most maxEdgeCost, the keys queued during
+ * Dijkstra's algorithm always lie within maxEdgeCost of the smallest
+ * one, so maxEdgeCost + 1 buckets used as a ring are enough. Every
+ * bucket is an intrusive doubly linked list over the ids, which makes
+ * insert and decreaseKey O(1) and poll O(1) amortized, with no key
+ * comparisons at all.
+ *********************/
+
+public class BucketQueue {
+
+  // number of buckets in the ring
+  private int numBuckets;
+  // first id of every bucket, -1 when the bucket is empty
+  private int[] head;
+  // neighbors of every id inside its bucket list, -1 at the ends
+  private int[] next;
+  private int[] prev;
+  // current key of every id, -1 when it is not in the queue
+  private long[] keys;
+  // no queued key is smaller than this one
+  private long cursor;
+  private int size;
+
+  /**********
+   * creates an empty queue
+   * @param ids range over 0 .. capacity - 1, largest cost of an edge
+   **/
+  public BucketQueue(int capacity, int maxEdgeCost) {
+    this.numBuckets = maxEdgeCost + 1;
+    this.head = new int[this.numBuckets];
+    this.next = new int[capacity];
+    this.prev = new int[capacity];
+    this.keys = new long[capacity];
+    java.util.Arrays.fill(this.head, -1);
+    java.util.Arrays.fill(this.keys, -1);
+  }
+
+  /**********
+   * @return the largest edge cost this queue was built for
+   **/
+  public int getMaxEdgeCost() {
+    return this.numBuckets - 1;
+  }
+
+  /**********
+   * @return whether the queue holds no ids
+   **/
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**********
+   * @return whether id is in the queue
+   **/
+  public boolean contains(int id) {
+    return this.keys[id] != -1;
+  }
+
+  /**********
+   * Adds an id that is not yet in the queue
+   * @param the id, its key, which must lie within maxEdgeCost of
+   *        the last key polled
+   **/
+  public void insert(int id, long key) {
+    if (this.keys[id] != -1) {
+      throw new IllegalArgumentException("Id " + id + " is already in the queue");
+    }
+    if (key < this.cursor || key - this.cursor >= this.numBuckets) {
+      if (this.size != 0) {
+        throw new IllegalArgumentException("Key " + key + " is out of the queue's range");
+      }
+      // nothing is queued, so the ring can start over at this key
+      this.cursor = key;
+    }
+    this.keys[id] = key;
+    link(id);
+    this.size++;
+  }
+
+  /**********
+   * Lowers the key of an id already in the queue
+   * @param the id, its new key, which must not be below the last key polled
+   **/
+  public void decreaseKey(int id, long key) {
+    if (key > this.keys[id] || key < this.cursor) {
+      throw new IllegalArgumentException("Key " + key + " is out of the queue's range");
+    }
+    unlink(id);
+    this.keys[id] = key;
+    link(id);
+  }
+
+  /**********
+   * Removes an id with the smallest key
+   * @return the removed id
+   **/
+  public int poll() {
+    if (this.size == 0) {
+      throw new NoSuchElementException("Queue is empty");
+    }
+    int b = (int) (this.cursor % this.numBuckets);
+    while (this.head[b] == -1) {
+      this.cursor++;
+      b = (b + 1 == this.numBuckets) ? 0 : b + 1;
+    }
+    int id = this.head[b];
+    unlink(id);
+    this.keys[id] = -1;
+    this.size--;
+    return id;
+  }
+
+  /**********
+   * Removes every id, in time proportional to the number of buckets
+   * plus the number of ids removed
+   **/
+  public void clear() {
+    for (int b = 0; b < this.numBuckets; b++) {
+      for (int id = this.head[b]; id != -1; id = this.next[id]) {
+        this.keys[id] = -1;
+      }
+      this.head[b] = -1;
+    }
+    this.size = 0;
+    this.cursor = 0;
+  }
+
+  /**********
+   * helper function for insert and decreaseKey
+   * puts id at the front of the bucket for its key
+   **/
+  private void link(int id) {
+    int b = (int) (this.keys[id] % this.numBuckets);
+    int first = this.head[b];
+    this.next[id] = first;
+    this.prev[id] = -1;
+    if (first != -1) {
+      this.prev[first] = id;
+    }
+    this.head[b] = id;
+  }
+
+  /**********
+   * helper function for decreaseKey and poll
+   * takes id out of its bucket
+   **/
+  private void unlink(int id) {
+    int p = this.prev[id];
+    int n = this.next[id];
+    if (p != -1) {
+      this.next[p] = n;
+    } else {
+      this.head[(int) (this.keys[id] % this.numBuckets)] = n;
+    }
+    if (n != -1) {
+      this.prev[n] = p;
+    }
+  }
+}
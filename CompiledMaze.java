@@ -0,0 +1,422 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * A maze frozen for answering many queries at once. It keeps its own
+ * copy of the weights, so later edits of the MazeGraph it was compiled
+ * from do not reach it, and nothing in it changes after it is built:
+ * the component index is complete, and the bitmaps, clusters and
+ * landmarks are built once on first use and only read afterwards.
+ * Every search keeps its state in a SearchContext, so any number of
+ * queries can run on it at once.
+ *
+ * solveAll runs a batch of queries on a fixed pool of threads and
+ * hands every result to the caller as soon as it is done. Each thread
+ * reuses one workspace of contexts for all the queries it runs, so a
+ * batch allocates per thread, not per query.
+ *********************/
+
+public final class CompiledMaze {
+
+  /**********
+   * The searches a query can ask for, see the MazeGraph method of the
+   * same name
+   **/
+  public enum Algorithm {
+    DEPTH_FIRST, BREADTH_FIRST, DIJKSTRA, DIAL, A_STAR,
+    BIDIRECTIONAL_BREADTH_FIRST, BIDIRECTIONAL_DIJKSTRA, WAVEFRONT,
+    HIERARCHICAL, LANDMARKS
+  }
+
+  /**********
+   * A search between two cells with a given algorithm
+   **/
+  public static final class Query {
+    private final int start;
+    private final int end;
+    private final Algorithm algorithm;
+
+    public Query(int start, int end, Algorithm algorithm) {
+      this.start = start;
+      this.end = end;
+      this.algorithm = algorithm;
+    }
+
+    public int getStart() {
+      return this.start;
+    }
+
+    public int getEnd() {
+      return this.end;
+    }
+
+    public Algorithm getAlgorithm() {
+      return this.algorithm;
+    }
+  }
+
+  /**********
+   * The path found for a query, with the query's position in its batch
+   **/
+  public static final class Result {
+    private final int index;
+    private final Query query;
+    private final int[] path;
+    private final long cost;
+
+    private Result(int index, Query query, int[] path, long cost) {
+      this.index = index;
+      this.query = query;
+      this.path = path;
+      this.cost = cost;
+    }
+
+    /**********
+     * @return the position of the query in the list given to solveAll
+     **/
+    public int getIndex() {
+      return this.index;
+    }
+
+    public Query getQuery() {
+      return this.query;
+    }
+
+    /**********
+     * @return cell ids along the found path, empty if there is none
+     **/
+    public int[] getPath() {
+      return this.path;
+    }
+
+    /**********
+     * @return the cost of the found path, or Long.MAX_VALUE if there
+     *         is none
+     **/
+    public long getCost() {
+      return this.cost;
+    }
+  }
+
+  /**********
+   * Contexts one thread searches with, reused for every query it runs
+   **/
+  private final class Workspace {
+    private final SearchContext fwd = new SearchContext(grid.getNumCells());
+    private SearchContext bwd;
+    private SearchContext abstractCtx;
+  }
+
+  private final GridGraph grid;
+  private final LabelIndex labelIndex;
+  private final ComponentIndex components;
+  // maze file and its key the landmark file must carry, or null if
+  // the maze was edited since it was read
+  private final String fname;
+  private final long key;
+  private final boolean weighted;
+  // built on first use, then only read
+  private volatile WavefrontSearch wavefront;
+  private volatile HierarchicalGraph hierarchy;
+  private volatile Landmarks landmarks;
+
+  /**********
+   * compiles a maze from its weights; see MazeGraph.compile
+   * @param width of the maze, weight of every cell (0 for walls), its
+   *        labels, its file and key to load landmarks from (null if
+   *        none), whether the weights are kept
+   **/
+  CompiledMaze(int size, int[] weights, LabelIndex labelIndex, String fname, long key,
+               boolean weighted) {
+    this.grid = new GridGraph(size, weights);
+    this.labelIndex = labelIndex;
+    this.components = new ComponentIndex(this.grid);
+    this.fname = fname;
+    this.key = key;
+    this.weighted = weighted;
+  }
+
+  /**********
+   * @return the number of cells, open or not
+   **/
+  public int getNumCells() {
+    return this.grid.getNumCells();
+  }
+
+  /**********
+   * @return whether a cell is open
+   **/
+  public boolean isOpen(int id) {
+    return this.grid.isOpen(id);
+  }
+
+  /**********
+   * @param vertex label
+   * @return the id of the corresponding open cell
+   **/
+  public int getCellId(String lab) {
+    int id = this.labelIndex.getCellId(lab);
+    if (id < 0 || !this.grid.isOpen(id)) {
+      throw new NoSuchElementException("Vertex not found!");
+    }
+    return id;
+  }
+
+  /**********
+   * @param cell ids along a path
+   * @return the labels of those cells
+   **/
+  public List<String> pathLabels(int[] path) {
+    ArrayList<String> out = new ArrayList<String>(path.length);
+    for (int i = 0; i < path.length; i++) {
+      out.add(this.labelIndex.getLabel(path[i]));
+    }
+    return out;
+  }
+
+  /**********
+   * @return whether there is a path between two cells
+   **/
+  public boolean isConnected(int start, int end) {
+    return this.components.connected(start, end);
+  }
+
+  /**********
+   * Answers one query on the calling thread with new contexts
+   * @param the query
+   * @return its result, with index 0
+   **/
+  public Result solve(Query q) {
+    return solve(0, q, new Workspace());
+  }
+
+  /**********
+   * Answers a batch of queries on a fixed pool of threads, handing
+   * every result to handler on the calling thread in the order they
+   * finish. If a query fails the rest are cancelled and its exception
+   * is thrown
+   * @param the queries, the number of threads, what to do with each
+   *        result
+   **/
+  public void solveAll(List<Query> queries, int threads, Consumer<Result> handler)
+      throws InterruptedException {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Need at least one thread, got " + threads);
+    }
+    for (Query q : queries) {
+      checkCell(q.getStart());
+      checkCell(q.getEnd());
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      CompletionService<Result> done = new ExecutorCompletionService<Result>(pool);
+      // a thread takes a free workspace for each query and puts it
+      // back, so no more are made than threads run at once
+      ConcurrentLinkedQueue<Workspace> spare = new ConcurrentLinkedQueue<Workspace>();
+      for (int i = 0; i < queries.size(); i++) {
+        int index = i;
+        Query q = queries.get(i);
+        done.submit(() -> {
+          Workspace ws = spare.poll();
+          if (ws == null) {
+            ws = new Workspace();
+          }
+          try {
+            return solve(index, q, ws);
+          } finally {
+            spare.offer(ws);
+          }
+        });
+      }
+      for (int i = 0; i < queries.size(); i++) {
+        try {
+          handler.accept(done.take().get());
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new IllegalStateException(cause);
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**********
+   * Answers a batch of queries on a fixed pool of threads
+   * @param the queries, the number of threads
+   * @return the results in the order of the queries
+   **/
+  public Result[] solveAll(List<Query> queries, int threads) throws InterruptedException {
+    Result[] out = new Result[queries.size()];
+    solveAll(queries, threads, r -> out[r.getIndex()] = r);
+    return out;
+  }
+
+  /**********
+   * helper function for solveAll
+   **/
+  private void checkCell(int id) {
+    if (id < 0 || id >= this.grid.getNumCells()) {
+      throw new IllegalArgumentException("No cell " + id + " in the maze");
+    }
+  }
+
+  /**********
+   * helper function for solve and solveAll
+   * runs a query with the contexts of a workspace
+   **/
+  private Result solve(int index, Query q, Workspace ws) {
+    int s = q.getStart();
+    int t = q.getEnd();
+    int[] path;
+    if (!isConnected(s, t)) {
+      path = new int[0];
+    } else {
+      path = search(s, t, q.getAlgorithm(), ws);
+    }
+    long cost = (path.length == 0) ? Long.MAX_VALUE : 0;
+    for (int i = 1; i < path.length; i++) {
+      cost += this.grid.getEdgeCost(path[i - 1], path[i]);
+    }
+    return new Result(index, q, path, cost);
+  }
+
+  /**********
+   * helper function for solve
+   * @return cell ids along the path the algorithm finds between two
+   *         connected cells
+   **/
+  private int[] search(int s, int t, Algorithm algorithm, Workspace ws) {
+    switch (algorithm) {
+      case DEPTH_FIRST:
+        return GraphSearch.depthFirst(this.grid, s, t, ws.fwd);
+      case BREADTH_FIRST:
+        return GraphSearch.breadthFirst(this.grid, s, t, ws.fwd);
+      case DIJKSTRA:
+        return GraphSearch.dijkstra(this.grid, s, t, ws.fwd);
+      case DIAL:
+        return GraphSearch.dial(this.grid, s, t, ws.fwd);
+      case A_STAR:
+        return GraphSearch.aStar(this.grid, s, t, ws.fwd);
+      case BIDIRECTIONAL_BREADTH_FIRST:
+        return GraphSearch.bidirectionalBreadthFirst(this.grid, s, t, ws.fwd, backward(ws));
+      case BIDIRECTIONAL_DIJKSTRA:
+        return GraphSearch.bidirectionalDijkstra(this.grid, s, t, ws.fwd, backward(ws));
+      case WAVEFRONT:
+        return getWavefront().search(s, t, ws.fwd);
+      case HIERARCHICAL:
+        HierarchicalGraph.Query hq = getHierarchy().query(s, t);
+        if (ws.abstractCtx == null || ws.abstractCtx.getNumNodes() < hq.getNumNodes()) {
+          ws.abstractCtx = new SearchContext(hq.getNumNodes());
+        }
+        return hq.expand(GraphSearch.aStar(hq, hq.getStart(), hq.getEnd(), ws.abstractCtx));
+      case LANDMARKS:
+        return GraphSearch.aStar(getLandmarks(), s, t, ws.fwd);
+      default:
+        throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+    }
+  }
+
+  /**********
+   * helper function for search
+   * @return the workspace's context for backward searches, made on
+   *         first use
+   **/
+  private SearchContext backward(Workspace ws) {
+    if (ws.bwd == null) {
+      ws.bwd = new SearchContext(this.grid.getNumCells());
+    }
+    return ws.bwd;
+  }
+
+  /**********
+   * @return the row bitmaps of this maze, packing them on first use
+   **/
+  private WavefrontSearch getWavefront() {
+    WavefrontSearch w = this.wavefront;
+    if (w == null) {
+      synchronized (this) {
+        w = this.wavefront;
+        if (w == null) {
+          w = new WavefrontSearch(this.grid);
+          this.wavefront = w;
+        }
+      }
+    }
+    return w;
+  }
+
+  /**********
+   * @return the clusters and entrances of this maze, building them on
+   *         first use
+   **/
+  private HierarchicalGraph getHierarchy() {
+    HierarchicalGraph h = this.hierarchy;
+    if (h == null) {
+      synchronized (this) {
+        h = this.hierarchy;
+        if (h == null) {
+          h = new HierarchicalGraph(this.grid);
+          this.hierarchy = h;
+        }
+      }
+    }
+    return h;
+  }
+
+  /**********
+   * @return the landmark distances of this maze, read from the
+   *         landmark file on first use if it matches the maze, or
+   *         computed. The file is left to MazeGraph to write
+   **/
+  private Landmarks getLandmarks() {
+    Landmarks l = this.landmarks;
+    if (l == null) {
+      synchronized (this) {
+        l = this.landmarks;
+        if (l == null) {
+          l = loadLandmarks();
+          if (l == null) {
+            l = Landmarks.compute(this.grid, Landmarks.DEFAULT_LANDMARKS);
+          }
+          this.landmarks = l;
+        }
+      }
+    }
+    return l;
+  }
+
+  /**********
+   * helper function for getLandmarks
+   * @return the landmarks saved next to the maze, or null if there
+   *         are none for this version of it
+   **/
+  private Landmarks loadLandmarks() {
+    if (this.fname == null) {
+      return null;
+    }
+    try {
+      return Landmarks.load(this.fname, this.key, this.weighted, this.grid);
+    } catch (IOException e) {
+      System.err.println("Warning, cannot read landmarks: " + e.getMessage());
+      return null;
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Connected components of the open cells of a grid graph, so a search
+ * between cells that are not connected can be refused before it
+ * starts instead of exhausting everything reachable from its start.
+ *
+ * Built with union-find in one sweep that joins every open cell to
+ * its open right and lower neighbors, then flattened so every cell
+ * points straight at its component's root and a query is two array
+ * reads. Opening a cell joins it to its neighbors' components in
+ * near-constant time. Closing a cell may split a component, which
+ * union-find cannot undo, so the index is rebuilt on the next query
+ * after one.
+ *
+ * Any number of queries can run at once; a query only ever points
+ * cells at an ancestor, so racing ones agree. Cells must not be
+ * opened or closed during queries.
+ *********************/
+
+public class ComponentIndex {
+
+  private GridGraph grid;
+  // for every open cell: the next cell towards its component's root,
+  // or -(size of the component) at the root
+  private int[] parent;
+  private int numComponents;
+  // whether a cell was closed since the last build
+  private volatile boolean stale;
+
+  /**********
+   * labels the components of a grid
+   * @param the grid
+   **/
+  public ComponentIndex(GridGraph grid) {
+    this.grid = grid;
+    this.parent = new int[grid.getNumCells()];
+    build();
+  }
+
+  /**********
+   * helper function for the constructor and connected
+   * joins every pair of neighboring open cells, then points every
+   * cell at its root
+   **/
+  private void build() {
+    int size = this.grid.getSize();
+    int n = this.grid.getNumCells();
+    this.numComponents = 0;
+    for (int v = 0; v < n; v++) {
+      if (this.grid.isOpen(v)) {
+        this.parent[v] = -1;
+        this.numComponents++;
+      }
+    }
+    for (int v = 0; v < n; v++) {
+      if (!this.grid.isOpen(v)) {
+        continue;
+      }
+      if ((v + 1) % size != 0 && this.grid.isOpen(v + 1)) {
+        union(v, v + 1);
+      }
+      if (v + size < n && this.grid.isOpen(v + size)) {
+        union(v, v + size);
+      }
+    }
+    for (int v = 0; v < n; v++) {
+      if (this.grid.isOpen(v)) {
+        find(v);
+      }
+    }
+    this.stale = false;
+  }
+
+  /**********
+   * @return the root of the component of an open cell, pointing the
+   *         cells on the way at it
+   **/
+  private int find(int v) {
+    int root = v;
+    while (this.parent[root] >= 0) {
+      root = this.parent[root];
+    }
+    while (this.parent[v] >= 0) {
+      int next = this.parent[v];
+      this.parent[v] = root;
+      v = next;
+    }
+    return root;
+  }
+
+  /**********
+   * joins the components of two open cells, the smaller under the
+   * larger
+   **/
+  private void union(int a, int b) {
+    int ra = find(a);
+    int rb = find(b);
+    if (ra == rb) {
+      return;
+    }
+    if (this.parent[ra] > this.parent[rb]) {
+      int t = ra;
+      ra = rb;
+      rb = t;
+    }
+    this.parent[ra] += this.parent[rb];
+    this.parent[rb] = ra;
+    this.numComponents--;
+  }
+
+  /**********
+   * @return whether there is a path between two cells: both are open
+   *         and in the same component
+   **/
+  public boolean connected(int a, int b) {
+    if (!this.grid.isOpen(a) || !this.grid.isOpen(b)) {
+      return false;
+    }
+    if (this.stale) {
+      rebuild();
+    }
+    return find(a) == find(b);
+  }
+
+  /**********
+   * helper function for connected
+   * builds the index again if a cell was closed since the last build
+   **/
+  private synchronized void rebuild() {
+    if (this.stale) {
+      build();
+    }
+  }
+
+  /**********
+   * @return the number of components
+   **/
+  public int getNumComponents() {
+    if (this.stale) {
+      rebuild();
+    }
+    return this.numComponents;
+  }
+
+  /**********
+   * @return the number of cells in the component of an open cell
+   **/
+  public int getComponentSize(int v) {
+    if (this.stale) {
+      rebuild();
+    }
+    return -this.parent[find(v)];
+  }
+
+  /**********
+   * Records that a wall cell was opened, joining it to the components
+   * of its open neighbors
+   * @param the cell id
+   **/
+  public synchronized void cellOpened(int v) {
+    if (this.stale) {
+      return;
+    }
+    this.parent[v] = -1;
+    this.numComponents++;
+    int[] nbrs = new int[4];
+    int count = this.grid.getNeighbors(v, nbrs);
+    for (int i = 0; i < count; i++) {
+      union(v, nbrs[i]);
+    }
+  }
+
+  /**********
+   * Records that an open cell became a wall. Its component may have
+   * split, so the index is rebuilt when next asked
+   * @param the cell id
+   **/
+  public synchronized void cellClosed(int v) {
+    this.stale = true;
+  }
+}
@@ -0,0 +1,540 @@
+import java.util.Arrays;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Corridor-contracted form of a grid graph. Every open cell with other
+ * than two neighbors is a junction and becomes a vertex; every maximal
+ * chain of two-neighbor cells between junctions becomes one corridor
+ * edge that carries the summed cost of its steps and the interior
+ * cells in order, so paths over junctions expand back into cells.
+ * Cycles with no junction get one cell promoted to a junction.
+ *
+ * When several corridors join the same two junctions only the
+ * cheapest is an edge, and corridors that loop back to their own
+ * junction are never edges; they are still recorded, so cells inside
+ * them can be searched from.
+ *
+ * Queries between cells inside corridors go through a Query, which
+ * adds the two cells as extra vertices splitting their corridors. The
+ * graph itself is never changed after it is built, so any number of
+ * queries can use it at once.
+ *********************/
+
+public class CorridorGraph implements SearchGraph {
+
+  private GridGraph grid;
+  // number of junctions, and the cell of each
+  private int numNodes;
+  private int[] nodeCell;
+  // for every open cell: its junction id if it is one, otherwise
+  // -(corridor + 1) of the corridor it is inside
+  private int[] cellRef;
+  // corridors: the junctions at their ends, their cost, and their
+  // interior cells from end a to end b in cells[cellStart[k] .. cellStart[k + 1])
+  private int numCorridors;
+  private int[] corA;
+  private int[] corB;
+  private long[] corCost;
+  private int[] cellStart;
+  private int[] cells;
+  // edges of every junction in compressed rows: neighbor and corridor
+  private int[] adjStart;
+  private int[] adjNode;
+  private int[] adjCorridor;
+  private int maxDegree;
+  private long maxEdgeCost;
+
+  /**********
+   * contracts the corridors of grid
+   **/
+  public CorridorGraph(GridGraph grid) {
+    this.grid = grid;
+    int n = grid.getNumCells();
+    this.cellRef = new int[n];
+    this.nodeCell = new int[16];
+    this.corA = new int[16];
+    this.corB = new int[16];
+    this.corCost = new long[16];
+    this.cellStart = new int[17];
+    this.cells = new int[16];
+    Arrays.fill(this.cellRef, Integer.MIN_VALUE);
+    for (int id = 0; id < n; id++) {
+      if (grid.isOpen(id) && grid.getDegree(id) != 2) {
+        addNode(id);
+      }
+    }
+    int[] nbrs = new int[4];
+    for (int v = 0; v < this.numNodes; v++) {
+      walkCorridors(v, nbrs);
+    }
+    // what is left unassigned are cycles of corridor cells
+    for (int id = 0; id < n; id++) {
+      if (grid.isOpen(id) && this.cellRef[id] == Integer.MIN_VALUE) {
+        walkCorridors(addNode(id), nbrs);
+      }
+    }
+    buildAdjacency();
+  }
+
+  /**********
+   * helper function for the constructor
+   * @return the id of a new junction at cell
+   **/
+  private int addNode(int cell) {
+    if (this.numNodes == this.nodeCell.length) {
+      this.nodeCell = Arrays.copyOf(this.nodeCell, 2 * this.numNodes);
+    }
+    this.cellRef[cell] = this.numNodes;
+    this.nodeCell[this.numNodes] = cell;
+    return this.numNodes++;
+  }
+
+  /**********
+   * helper function for the constructor
+   * follows every corridor leaving junction v to the junction at its
+   * other end. Each corridor is walked from both ends but recorded
+   * once, from the end with the smaller id (for loops, the end whose
+   * first interior cell is smaller)
+   **/
+  private void walkCorridors(int v, int[] nbrs) {
+    int start = this.nodeCell[v];
+    int count = this.grid.getNeighbors(start, nbrs);
+    int[] first = Arrays.copyOf(nbrs, count);
+    int[] next = new int[4];
+    for (int i = 0; i < count; i++) {
+      int from = this.numCorridors;
+      int at = this.cellStart[from];
+      int prev = start;
+      int cur = first[i];
+      long cost = this.grid.getEdgeCost(start, cur);
+      while (this.cellRef[cur] < 0 && this.grid.getDegree(cur) == 2) {
+        if (at == this.cells.length) {
+          this.cells = Arrays.copyOf(this.cells, 2 * at);
+        }
+        this.cells[at++] = cur;
+        this.grid.getNeighbors(cur, next);
+        int step = (next[0] == prev) ? next[1] : next[0];
+        cost += this.grid.getEdgeCost(cur, step);
+        prev = cur;
+        cur = step;
+      }
+      int w = this.cellRef[cur];
+      int interior = at - this.cellStart[from];
+      boolean keep = (v < w) || (v == w && interior > 0 &&
+                                 this.cells[this.cellStart[from]] < this.cells[at - 1]);
+      if (!keep) {
+        continue;
+      }
+      if (from + 1 == this.corA.length) {
+        this.corA = Arrays.copyOf(this.corA, 2 * this.corA.length);
+        this.corB = Arrays.copyOf(this.corB, 2 * this.corB.length);
+        this.corCost = Arrays.copyOf(this.corCost, 2 * this.corCost.length);
+        this.cellStart = Arrays.copyOf(this.cellStart, 2 * this.cellStart.length);
+      }
+      this.corA[from] = v;
+      this.corB[from] = w;
+      this.corCost[from] = cost;
+      this.cellStart[from + 1] = at;
+      for (int j = this.cellStart[from]; j < at; j++) {
+        this.cellRef[this.cells[j]] = -(from + 1);
+      }
+      this.numCorridors++;
+    }
+  }
+
+  /**********
+   * helper function for the constructor
+   * lists, for every junction, the cheapest corridor to each other
+   * junction it reaches
+   **/
+  private void buildAdjacency() {
+    this.adjStart = new int[this.numNodes + 1];
+    for (int k = 0; k < this.numCorridors; k++) {
+      if (this.corA[k] != this.corB[k]) {
+        this.adjStart[this.corA[k] + 1]++;
+        this.adjStart[this.corB[k] + 1]++;
+      }
+    }
+    for (int v = 0; v < this.numNodes; v++) {
+      this.adjStart[v + 1] += this.adjStart[v];
+    }
+    int[] fill = Arrays.copyOf(this.adjStart, this.numNodes);
+    int[] node = new int[this.adjStart[this.numNodes]];
+    int[] corridor = new int[node.length];
+    for (int k = 0; k < this.numCorridors; k++) {
+      int a = this.corA[k];
+      int b = this.corB[k];
+      if (a != b) {
+        node[fill[a]] = b;
+        corridor[fill[a]++] = k;
+        node[fill[b]] = a;
+        corridor[fill[b]++] = k;
+      }
+    }
+    // keep only the cheapest of parallel corridors
+    this.adjNode = new int[node.length];
+    this.adjCorridor = new int[node.length];
+    int size = 0;
+    for (int v = 0; v < this.numNodes; v++) {
+      int rowStart = size;
+      for (int j = this.adjStart[v]; j < this.adjStart[v + 1]; j++) {
+        int seen = -1;
+        for (int m = rowStart; m < size; m++) {
+          if (this.adjNode[m] == node[j]) {
+            seen = m;
+          }
+        }
+        if (seen == -1) {
+          this.adjNode[size] = node[j];
+          this.adjCorridor[size++] = corridor[j];
+        } else if (this.corCost[corridor[j]] < this.corCost[this.adjCorridor[seen]]) {
+          this.adjCorridor[seen] = corridor[j];
+        }
+      }
+      this.adjStart[v] = rowStart;
+      this.maxDegree = Math.max(this.maxDegree, size - rowStart);
+    }
+    this.adjStart[this.numNodes] = size;
+    for (int j = 0; j < size; j++) {
+      this.maxEdgeCost = Math.max(this.maxEdgeCost, this.corCost[this.adjCorridor[j]]);
+    }
+  }
+
+  /**********
+   * @return the grid this graph contracts
+   **/
+  public GridGraph getGrid() {
+    return this.grid;
+  }
+
+  /**********
+   * @return number of junctions
+   **/
+  public int getNumNodes() {
+    return this.numNodes;
+  }
+
+  /**********
+   * @return number of corridor edges between distinct junctions
+   **/
+  public int getNumEdges() {
+    return this.adjStart[this.numNodes] / 2;
+  }
+
+  /**********
+   * @return the cell of a junction
+   **/
+  public int getCell(int v) {
+    return this.nodeCell[v];
+  }
+
+  /**********
+   * @return the junction at a cell, or -1 if the cell is not one
+   **/
+  public int getNode(int cell) {
+    int ref = this.cellRef[cell];
+    return ref >= 0 ? ref : -1;
+  }
+
+  public int getMaxDegree() {
+    return this.maxDegree;
+  }
+
+  public int getNeighbors(int v, int[] out) {
+    int n = 0;
+    for (int j = this.adjStart[v]; j < this.adjStart[v + 1]; j++) {
+      out[n++] = this.adjNode[j];
+    }
+    return n;
+  }
+
+  public long getEdgeCost(int u, int v) {
+    return this.corCost[corridorBetween(u, v)];
+  }
+
+  public long getMaxEdgeCost() {
+    return this.maxEdgeCost;
+  }
+
+  public long getCostLowerBound(int u, int v) {
+    return this.grid.getCostLowerBound(this.nodeCell[u], this.nodeCell[v]);
+  }
+
+  /**********
+   * @return the corridor edge between two adjacent junctions
+   **/
+  private int corridorBetween(int u, int v) {
+    for (int j = this.adjStart[u]; j < this.adjStart[u + 1]; j++) {
+      if (this.adjNode[j] == v) {
+        return this.adjCorridor[j];
+      }
+    }
+    throw new IllegalArgumentException("Junctions " + u + " and " + v + " are not adjacent");
+  }
+
+  /**********
+   * @return the cost of walking corridor k from its end a to its
+   *         interior cell pos, or to end b when pos is its length
+   **/
+  private long costAlong(int k, int pos) {
+    int from = this.cellStart[k];
+    int len = this.cellStart[k + 1] - from;
+    int prev = this.nodeCell[this.corA[k]];
+    long cost = 0;
+    for (int i = 0; i <= pos; i++) {
+      int cur = (i == len) ? this.nodeCell[this.corB[k]] : this.cells[from + i];
+      cost += this.grid.getEdgeCost(prev, cur);
+      prev = cur;
+    }
+    return cost;
+  }
+
+  /**********
+   * @return a view of this graph for a search between two cells
+   **/
+  public Query query(int startCell, int endCell) {
+    return new Query(startCell, endCell);
+  }
+
+  /**********
+   * The corridor graph plus up to two vertices for cells inside
+   * corridors (numbered getNumNodes() and getNumNodes() + 1), each
+   * splitting its corridor into segments between consecutive stops.
+   * Searches run on the query with getStart() and getEnd(); expand
+   * turns the vertices they return into cells
+   **/
+  public class Query implements SearchGraph {
+    private int start;
+    private int end;
+    // cells of the added vertices
+    private int[] extraCell = new int[2];
+    private int numExtra;
+    // segment edges: their ends, corridor, cost and the stop
+    // positions they run between (-1 for end a, length for end b)
+    private int[] segU = new int[6];
+    private int[] segV = new int[6];
+    private int[] segCorridor = new int[6];
+    private long[] segCost = new long[6];
+    private int[] segFrom = new int[6];
+    private int[] segTo = new int[6];
+    private int numSegs;
+    // bounds of the graph with the segments added: a segment may come
+    // from a loop or a dearer parallel corridor, which are not edges,
+    // and gives each of its ends one more neighbor
+    private int queryMaxDegree;
+    private long queryMaxEdgeCost;
+
+    Query(int startCell, int endCell) {
+      this.start = vertexAt(startCell);
+      this.end = vertexAt(endCell);
+      splitCorridors();
+      this.queryMaxDegree = maxDegree + this.numSegs;
+      this.queryMaxEdgeCost = maxEdgeCost;
+      for (int s = 0; s < this.numSegs; s++) {
+        this.queryMaxEdgeCost = Math.max(this.queryMaxEdgeCost, this.segCost[s]);
+      }
+    }
+
+    /**********
+     * helper function for the constructor
+     * @return the vertex of a cell, adding one if it is in a corridor
+     **/
+    private int vertexAt(int cell) {
+      int ref = cellRef[cell];
+      if (ref >= 0) {
+        return ref;
+      }
+      for (int i = 0; i < this.numExtra; i++) {
+        if (this.extraCell[i] == cell) {
+          return numNodes + i;
+        }
+      }
+      this.extraCell[this.numExtra] = cell;
+      return numNodes + this.numExtra++;
+    }
+
+    /**********
+     * helper function for the constructor
+     * splits every corridor holding an added vertex at its stops
+     **/
+    private void splitCorridors() {
+      for (int i = 0; i < this.numExtra; i++) {
+        int k = -cellRef[this.extraCell[i]] - 1;
+        boolean done = false;
+        for (int j = 0; j < i; j++) {
+          done |= (-cellRef[this.extraCell[j]] - 1 == k);
+        }
+        if (done) {
+          continue;
+        }
+        // stops along k in order: end a, added vertices, end b
+        int len = cellStart[k + 1] - cellStart[k];
+        int[] stopPos = new int[4];
+        int[] stopNode = new int[4];
+        int stops = 0;
+        stopPos[stops] = -1;
+        stopNode[stops++] = corA[k];
+        for (int j = i; j < this.numExtra; j++) {
+          if (-cellRef[this.extraCell[j]] - 1 == k) {
+            stopPos[stops] = positionOf(k, this.extraCell[j]);
+            stopNode[stops++] = numNodes + j;
+          }
+        }
+        if (stops == 3 && stopPos[2] < stopPos[1]) {
+          int t = stopPos[1]; stopPos[1] = stopPos[2]; stopPos[2] = t;
+          t = stopNode[1]; stopNode[1] = stopNode[2]; stopNode[2] = t;
+        }
+        stopPos[stops] = len;
+        stopNode[stops++] = corB[k];
+        for (int s = 0; s + 1 < stops; s++) {
+          this.segU[this.numSegs] = stopNode[s];
+          this.segV[this.numSegs] = stopNode[s + 1];
+          this.segCorridor[this.numSegs] = k;
+          this.segFrom[this.numSegs] = stopPos[s];
+          this.segTo[this.numSegs] = stopPos[s + 1];
+          this.segCost[this.numSegs] = costAlong(k, stopPos[s + 1]) -
+              (stopPos[s] < 0 ? 0 : costAlong(k, stopPos[s]));
+          this.numSegs++;
+        }
+      }
+    }
+
+    /**********
+     * helper function for splitCorridors
+     * @return the index of cell among corridor k's interior cells
+     **/
+    private int positionOf(int k, int cell) {
+      for (int j = cellStart[k]; j < cellStart[k + 1]; j++) {
+        if (cells[j] == cell) {
+          return j - cellStart[k];
+        }
+      }
+      throw new IllegalStateException("Cell " + cell + " is not in corridor " + k);
+    }
+
+    /**********
+     * @return the vertex of the start cell
+     **/
+    public int getStart() {
+      return this.start;
+    }
+
+    /**********
+     * @return the vertex of the end cell
+     **/
+    public int getEnd() {
+      return this.end;
+    }
+
+    public int getNumNodes() {
+      return numNodes + 2;
+    }
+
+    public int getMaxDegree() {
+      return this.queryMaxDegree;
+    }
+
+    public int getNeighbors(int v, int[] out) {
+      int n = (v < numNodes) ? CorridorGraph.this.getNeighbors(v, out) : 0;
+      for (int s = 0; s < this.numSegs; s++) {
+        if (this.segU[s] == v) {
+          out[n++] = this.segV[s];
+        } else if (this.segV[s] == v) {
+          out[n++] = this.segU[s];
+        }
+      }
+      return n;
+    }
+
+    public long getEdgeCost(int u, int v) {
+      int s = segmentBetween(u, v);
+      if (s >= 0) {
+        return this.segCost[s];
+      }
+      return CorridorGraph.this.getEdgeCost(u, v);
+    }
+
+    public long getMaxEdgeCost() {
+      return this.queryMaxEdgeCost;
+    }
+
+    public long getCostLowerBound(int u, int v) {
+      return grid.getCostLowerBound(cellOf(u), cellOf(v));
+    }
+
+    /**********
+     * @return the cell of a vertex of this query
+     **/
+    public int cellOf(int v) {
+      return (v < numNodes) ? nodeCell[v] : this.extraCell[v - numNodes];
+    }
+
+    /**********
+     * @return the cheapest segment edge between u and v, or -1 if
+     *         they are joined by a corridor edge instead. Segments
+     *         always end at an added vertex, so the two never overlap
+     **/
+    private int segmentBetween(int u, int v) {
+      int best = -1;
+      for (int s = 0; s < this.numSegs; s++) {
+        if ((this.segU[s] == u && this.segV[s] == v) || (this.segU[s] == v && this.segV[s] == u)) {
+          if (best == -1 || this.segCost[s] < this.segCost[best]) {
+            best = s;
+          }
+        }
+      }
+      return best;
+    }
+
+    /**********
+     * Expands a path of this query's vertices into the cells it walks
+     * @param vertex ids along a path
+     * @return cell ids along the same path, empty if path is
+     **/
+    public int[] expand(int[] path) {
+      if (path.length == 0) {
+        return path;
+      }
+      int[] out = new int[16];
+      int n = 0;
+      out[n++] = cellOf(path[0]);
+      for (int i = 0; i + 1 < path.length; i++) {
+        int u = path[i];
+        int v = path[i + 1];
+        int k;
+        int from;
+        int to;
+        boolean forward;
+        int s = segmentBetween(u, v);
+        if (s >= 0) {
+          k = this.segCorridor[s];
+          from = this.segFrom[s];
+          to = this.segTo[s];
+          forward = (this.segU[s] == u);
+        } else {
+          k = corridorBetween(u, v);
+          from = -1;
+          to = cellStart[k + 1] - cellStart[k];
+          forward = (corA[k] == u);
+        }
+        int need = n + (to - from);
+        if (need > out.length) {
+          out = Arrays.copyOf(out, Math.max(need, 2 * out.length));
+        }
+        int base = cellStart[k];
+        if (forward) {
+          for (int j = from + 1; j < to; j++) {
+            out[n++] = cells[base + j];
+          }
+        } else {
+          for (int j = to - 1; j > from; j--) {
+            out[n++] = cells[base + j];
+          }
+        }
+        out[n++] = cellOf(v);
+      }
+      return Arrays.copyOf(out, n);
+    }
+  }
+}
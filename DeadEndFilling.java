@@ -0,0 +1,149 @@
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Dead-end filling of a grid graph for one pair of cells. Every open
+ * cell with at most one open neighbor, other than the start and the
+ * end, is a dead end and is filled in like a wall; filling it can make
+ * its neighbor a dead end in turn, so a worklist keeps filling until
+ * none are left. Each cell is filled at most once and the whole pass
+ * is linear in the number of cells.
+ *
+ * What is left holds every simple path between the two cells, so a
+ * search on it finds the same paths while never entering a dead-end
+ * branch. On a perfect maze only the solution corridor is left. The
+ * filled grid is never changed once built, so any number of searches
+ * between the pair can share it.
+ *********************/
+
+public class DeadEndFilling implements SearchGraph {
+
+  private GridGraph grid;
+  private int start;
+  private int end;
+  // number of open neighbors that are not filled, for every cell;
+  // -1 for walls and filled cells
+  private byte[] degree;
+  private int numFilled;
+
+  /**********
+   * fills in the dead ends of a grid, keeping two cells open
+   * @param the grid, the cells to keep open
+   **/
+  public DeadEndFilling(GridGraph grid, int start, int end) {
+    this.grid = grid;
+    this.start = start;
+    this.end = end;
+    int n = grid.getNumCells();
+    this.degree = new byte[n];
+    // every cell is pushed at most once: when first seen with at most
+    // one neighbor, or when its count drops to one
+    int[] work = new int[n];
+    int top = 0;
+    for (int v = 0; v < n; v++) {
+      if (!grid.isOpen(v)) {
+        this.degree[v] = -1;
+        continue;
+      }
+      this.degree[v] = (byte) grid.getDegree(v);
+      if (this.degree[v] <= 1 && v != start && v != end) {
+        work[top++] = v;
+      }
+    }
+    int[] nbrs = new int[grid.getMaxDegree()];
+    while (top != 0) {
+      int v = work[--top];
+      this.degree[v] = -1;
+      this.numFilled++;
+      int count = grid.getNeighbors(v, nbrs);
+      for (int i = 0; i < count; i++) {
+        int nb = nbrs[i];
+        if (this.degree[nb] < 0) {
+          continue;
+        }
+        this.degree[nb]--;
+        if (this.degree[nb] == 1 && nb != start && nb != end) {
+          work[top++] = nb;
+        }
+      }
+    }
+  }
+
+  /**********
+   * @return the grid this filling was made from
+   **/
+  public GridGraph getGrid() {
+    return this.grid;
+  }
+
+  /**********
+   * @return the cell kept open as the start
+   **/
+  public int getStart() {
+    return this.start;
+  }
+
+  /**********
+   * @return the cell kept open as the end
+   **/
+  public int getEnd() {
+    return this.end;
+  }
+
+  /**********
+   * @return whether this filling was made for the given pair of cells,
+   *         in either order
+   **/
+  public boolean isFor(int a, int b) {
+    return (a == this.start && b == this.end) || (a == this.end && b == this.start);
+  }
+
+  /**********
+   * @return the number of open cells filled in
+   **/
+  public int getNumFilled() {
+    return this.numFilled;
+  }
+
+  /**********
+   * @return whether a cell is open and not filled in
+   **/
+  public boolean isOpen(int id) {
+    return this.degree[id] >= 0;
+  }
+
+  public int getNumNodes() {
+    return this.grid.getNumNodes();
+  }
+
+  public int getMaxDegree() {
+    return this.grid.getMaxDegree();
+  }
+
+  /**********
+   * Writes the neighbors of a cell that are not filled in
+   * @param cell id, an array with room for four ids
+   * @return the number of neighbors written
+   **/
+  public int getNeighbors(int v, int[] out) {
+    int count = this.grid.getNeighbors(v, out);
+    int n = 0;
+    for (int i = 0; i < count; i++) {
+      if (this.degree[out[i]] >= 0) {
+        out[n++] = out[i];
+      }
+    }
+    return n;
+  }
+
+  public long getEdgeCost(int u, int v) {
+    return this.grid.getEdgeCost(u, v);
+  }
+
+  public long getMaxEdgeCost() {
+    return this.grid.getMaxEdgeCost();
+  }
+
+  public long getCostLowerBound(int u, int v) {
+    return this.grid.getCostLowerBound(u, v);
+  }
+}
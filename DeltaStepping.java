@@ -0,0 +1,281 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Parallel single-source shortest paths on a search graph by
+ * delta-stepping. Tentative distances are kept in buckets of width
+ * delta. The smallest non-empty bucket is settled in phases: the
+ * light edges (cost <= delta) of all its vertices are relaxed in
+ * parallel, repeatedly, until the bucket stops refilling; then the
+ * heavy edges of everything it settled are relaxed once, also in
+ * parallel. Relaxations lower a distance with compare-and-set, so
+ * tasks never lock.
+ *
+ * Edge costs are sums of two cell weights, e.g. 2 to 18 for generated
+ * mazes, so delta defaults to half the largest edge cost: most edges
+ * are light and buckets stay wide enough to keep every core busy.
+ * The distances are exactly those of serial Dijkstra.
+ *********************/
+
+public class DeltaStepping {
+
+  // lists shorter than this are relaxed on the calling thread
+  private static final int SERIAL_THRESHOLD = 4096;
+
+  private SearchGraph grid;
+  private ForkJoinPool pool;
+  private long delta;
+
+  /**********
+   * creates a solver over grid running on pool, with the default
+   * bucket width
+   **/
+  public DeltaStepping(SearchGraph grid, ForkJoinPool pool) {
+    this(grid, pool, Math.max(1, grid.getMaxEdgeCost() / 2));
+  }
+
+  /**********
+   * creates a solver over grid running on pool
+   * @param bucket width, at least 1
+   **/
+  public DeltaStepping(SearchGraph grid, ForkJoinPool pool, long delta) {
+    if (delta < 1) {
+      throw new IllegalArgumentException("Bucket width must be at least 1");
+    }
+    this.grid = grid;
+    this.pool = pool;
+    this.delta = delta;
+  }
+
+  /**********
+   * @Param a source cell id
+   * @Return the shortest distance from source to every cell,
+   * Long.MAX_VALUE for walls and unreachable cells
+   **/
+  public long[] distances(int source) {
+    AtomicLongArray dist = run(source, -1);
+    long[] out = new long[dist.length()];
+    for (int i = 0; i < out.length; i++) {
+      out[i] = dist.get(i);
+    }
+    return out;
+  }
+
+  /**********
+   * Shortest path between two cells. Stops once every distance up to
+   * end's has been settled, then walks back from end along edges
+   * whose cost accounts exactly for the difference in distance
+   * @Param start and end cell ids
+   * @Return cell ids along the found path, empty if there is none
+   **/
+  public int[] search(int start, int end) {
+    AtomicLongArray dist = run(start, end);
+    if (dist.get(end) == Long.MAX_VALUE) {
+      return new int[0];
+    }
+    int[] nbrs = new int[this.grid.getMaxDegree()];
+    int[] path = new int[16];
+    int length = 0;
+    int v = end;
+    path[length++] = v;
+    while (v != start) {
+      long dv = dist.get(v);
+      int count = this.grid.getNeighbors(v, nbrs);
+      for (int i = 0; i < count; i++) {
+        long du = dist.get(nbrs[i]);
+        if (du != Long.MAX_VALUE && du + this.grid.getEdgeCost(nbrs[i], v) == dv) {
+          v = nbrs[i];
+          break;
+        }
+      }
+      if (length == path.length) {
+        path = Arrays.copyOf(path, 2 * length);
+      }
+      path[length++] = v;
+    }
+    int[] out = new int[length];
+    for (int i = 0; i < length; i++) {
+      out[i] = path[length - 1 - i];
+    }
+    return out;
+  }
+
+  /**********
+   * helper function for distances and search
+   * @Param source cell, cell whose distance ends the run early or -1
+   * @Return tentative distances, final for every settled cell
+   **/
+  private AtomicLongArray run(int source, int target) {
+    int n = this.grid.getNumNodes();
+    AtomicLongArray dist = new AtomicLongArray(n);
+    for (int i = 0; i < n; i++) {
+      dist.set(i, Long.MAX_VALUE);
+    }
+    // a new distance is at most maxEdgeCost past the current bucket,
+    // so this many buckets used as a ring always suffice
+    int ring = (int) (this.grid.getMaxEdgeCost() / this.delta) + 2;
+    IntList[] buckets = new IntList[ring];
+    for (int b = 0; b < ring; b++) {
+      buckets[b] = new IntList();
+    }
+    // bucket each cell was last settled in, and the last phase that
+    // relaxed it, so a phase relaxes every cell once
+    long[] settledIn = new long[n];
+    long[] relaxedIn = new long[n];
+    Arrays.fill(settledIn, -1);
+    Arrays.fill(relaxedIn, -1);
+    long phase = 0;
+    dist.set(source, 0);
+    buckets[0].add(source);
+    int pending = 1;
+    long current = 0;
+    while (pending != 0) {
+      IntList bucket = buckets[(int) (current % ring)];
+      if (bucket.size == 0) {
+        current++;
+        continue;
+      }
+      IntList settled = new IntList();
+      while (bucket.size != 0) {
+        int[] req = bucket.toArray();
+        pending -= bucket.size;
+        bucket.size = 0;
+        // drop cells that moved to a lower bucket or repeat in this phase
+        int live = 0;
+        for (int i = 0; i < req.length; i++) {
+          int v = req[i];
+          if (dist.get(v) / this.delta == current && relaxedIn[v] != phase) {
+            relaxedIn[v] = phase;
+            req[live++] = v;
+            if (settledIn[v] != current) {
+              settledIn[v] = current;
+              settled.add(v);
+            }
+          }
+        }
+        phase++;
+        pending += relax(req, live, true, dist, buckets);
+      }
+      int[] all = settled.toArray();
+      pending += relax(all, all.length, false, dist, buckets);
+      if (target != -1 && dist.get(target) / this.delta <= current) {
+        break;
+      }
+      current++;
+    }
+    return dist;
+  }
+
+  /**********
+   * helper function for run
+   * relaxes the light or heavy edges of cells[0 .. count) in parallel
+   * and files every improved cell in its bucket
+   * @Return the number of cells added to buckets
+   **/
+  private int relax(int[] cells, int count, boolean light, AtomicLongArray dist,
+                    IntList[] buckets) {
+    if (count == 0) {
+      return 0;
+    }
+    int[] improved;
+    if (count < SERIAL_THRESHOLD) {
+      improved = relaxRange(cells, 0, count, light, dist);
+    } else {
+      improved = this.pool.invoke(new RelaxTask(cells, 0, count, light, dist));
+    }
+    for (int i = 0; i < improved.length; i++) {
+      int v = improved[i];
+      buckets[(int) ((dist.get(v) / this.delta) % buckets.length)].add(v);
+    }
+    return improved.length;
+  }
+
+  /**********
+   * helper function for relax and RelaxTask
+   * @Return cells whose distance this range lowered, possibly repeated
+   **/
+  private int[] relaxRange(int[] cells, int from, int to, boolean light, AtomicLongArray dist) {
+    IntList improved = new IntList();
+    int[] nbrs = new int[this.grid.getMaxDegree()];
+    for (int i = from; i < to; i++) {
+      int u = cells[i];
+      long du = dist.get(u);
+      int count = this.grid.getNeighbors(u, nbrs);
+      for (int j = 0; j < count; j++) {
+        int v = nbrs[j];
+        long cost = this.grid.getEdgeCost(u, v);
+        if ((cost <= this.delta) != light) {
+          continue;
+        }
+        long nd = du + cost;
+        long old = dist.get(v);
+        while (nd < old) {
+          if (dist.compareAndSet(v, old, nd)) {
+            improved.add(v);
+            break;
+          }
+          old = dist.get(v);
+        }
+      }
+    }
+    return improved.toArray();
+  }
+
+  /**********
+   * Relaxes cells[from .. to), splitting the range in half until it
+   * is small enough to do serially
+   **/
+  private class RelaxTask extends RecursiveTask<int[]> {
+    private static final long serialVersionUID = 1L;
+    private int[] cells;
+    private int from;
+    private int to;
+    private boolean light;
+    private AtomicLongArray dist;
+
+    RelaxTask(int[] cells, int from, int to, boolean light, AtomicLongArray dist) {
+      this.cells = cells;
+      this.from = from;
+      this.to = to;
+      this.light = light;
+      this.dist = dist;
+    }
+
+    protected int[] compute() {
+      if (this.to - this.from <= SERIAL_THRESHOLD) {
+        return relaxRange(this.cells, this.from, this.to, this.light, this.dist);
+      }
+      int mid = (this.from + this.to) >>> 1;
+      RelaxTask left = new RelaxTask(this.cells, this.from, mid, this.light, this.dist);
+      left.fork();
+      int[] right = new RelaxTask(this.cells, mid, this.to, this.light, this.dist).compute();
+      int[] l = left.join();
+      int[] both = Arrays.copyOf(l, l.length + right.length);
+      System.arraycopy(right, 0, both, l.length, right.length);
+      return both;
+    }
+  }
+
+  /**********
+   * growable list of ints for the buckets
+   **/
+  private static class IntList {
+    private int[] items = new int[8];
+    private int size;
+
+    void add(int v) {
+      if (this.size == this.items.length) {
+        this.items = Arrays.copyOf(this.items, 2 * this.size);
+      }
+      this.items[this.size++] = v;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(this.items, this.size);
+    }
+  }
+}
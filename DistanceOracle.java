@@ -0,0 +1,337 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Exact shortest distances and paths on a grid graph that is a tree,
+ * or nearly one, without searching. A breadth-first spanning forest
+ * of the open cells is rooted once. Every cell keeps its parent, its
+ * depth, the cost from its root and a jump pointer, which together
+ * find the lowest common ancestor of two cells in O(log n) with O(1)
+ * memory per cell; on a tree the distance between s and t is then
+ * cost(s) + cost(t) - 2 cost(lca).
+ *
+ * Edges left out of the forest close cycles. Their end cells are
+ * portals, and the distances between all portals are solved once over
+ * the small graph of tree distances and those edges, so with portals
+ * p and q
+ *
+ *   d(s, t) = min(dT(s, t), min over p, q of dT(s, p) + D(p, q) + dT(q, t))
+ *
+ * which costs O(P log n + P^2) per query for P portals. A maze with
+ * more portals than the limit gets no oracle; see build.
+ *
+ * The oracle is never changed once built, so any number of queries
+ * can use it at once.
+ *********************/
+
+public class DistanceOracle {
+
+  // most portals an oracle is built with by default
+  public static final int DEFAULT_MAX_PORTALS = 64;
+  private static final long UNREACHABLE = Long.MAX_VALUE;
+
+  private GridGraph grid;
+  // for every open cell: its parent (-1 for roots), depth, cost from
+  // its root and an ancestor to skip to; jump pointers follow the
+  // skew-binary scheme, so climbing to any depth takes O(log n) jumps
+  private int[] parent;
+  private int[] jump;
+  private int[] depth;
+  private long[] cost;
+  // cells of the portals, the distances between every two and the
+  // portal after i on a shortest way from i to j at [i * P + j]
+  private int[] portalCell;
+  private long[] portalDist;
+  private int[] portalNext;
+
+  private DistanceOracle(GridGraph grid) {
+    this.grid = grid;
+  }
+
+  /**********
+   * Roots a spanning forest of a grid and solves its portals, if the
+   * grid has few enough cycles
+   * @param the grid, the most portals to accept
+   * @return the oracle, or null if the grid has more portals than
+   *         maxPortals
+   **/
+  public static DistanceOracle build(GridGraph grid, int maxPortals) {
+    DistanceOracle oracle = new DistanceOracle(grid);
+    HashMap<Integer, Integer> portals = oracle.buildForest(maxPortals);
+    if (portals == null) {
+      return null;
+    }
+    oracle.solvePortals(portals);
+    return oracle;
+  }
+
+  /**********
+   * helper function for build
+   * roots a breadth-first tree at the first cell of every component,
+   * then numbers the end cells of the edges the trees left out
+   * @param the most portals to accept
+   * @return the index of every portal cell, or null if there are more
+   *         than maxPortals
+   **/
+  private HashMap<Integer, Integer> buildForest(int maxPortals) {
+    int n = this.grid.getNumCells();
+    this.parent = new int[n];
+    this.jump = new int[n];
+    this.depth = new int[n];
+    this.cost = new long[n];
+    Arrays.fill(this.depth, -1);
+    int[] Q = new int[n];
+    int[] nbrs = new int[4];
+    for (int root = 0; root < n; root++) {
+      if (!this.grid.isOpen(root) || this.depth[root] >= 0) {
+        continue;
+      }
+      this.parent[root] = -1;
+      this.jump[root] = root;
+      this.depth[root] = 0;
+      int head = 0;
+      int tail = 0;
+      Q[tail++] = root;
+      while (head != tail) {
+        int p = Q[head++];
+        int count = this.grid.getNeighbors(p, nbrs);
+        for (int i = 0; i < count; i++) {
+          int v = nbrs[i];
+          if (this.depth[v] >= 0) {
+            continue;
+          }
+          this.parent[v] = p;
+          this.depth[v] = this.depth[p] + 1;
+          this.cost[v] = this.cost[p] + this.grid.getEdgeCost(p, v);
+          int j = this.jump[p];
+          boolean skip = this.depth[p] - this.depth[j] == this.depth[j] - this.depth[this.jump[j]];
+          this.jump[v] = skip ? this.jump[j] : p;
+          Q[tail++] = v;
+        }
+      }
+    }
+    HashMap<Integer, Integer> portals = new HashMap<Integer, Integer>();
+    for (int u = 0; u < n; u++) {
+      if (!this.grid.isOpen(u)) {
+        continue;
+      }
+      int count = this.grid.getNeighbors(u, nbrs);
+      for (int i = 0; i < count; i++) {
+        int v = nbrs[i];
+        if (v > u && this.parent[v] != u && this.parent[u] != v) {
+          addPortal(portals, u);
+          addPortal(portals, v);
+          if (portals.size() > maxPortals) {
+            return null;
+          }
+        }
+      }
+    }
+    return portals;
+  }
+
+  /**********
+   * helper function for buildForest
+   **/
+  private static void addPortal(HashMap<Integer, Integer> portals, int cell) {
+    if (!portals.containsKey(cell)) {
+      portals.put(cell, portals.size());
+    }
+  }
+
+  /**********
+   * helper function for build
+   * solves the distances between all portals over the graph of their
+   * tree distances and the edges between them, Floyd-Warshall style.
+   * Between neighboring cells the edge is never dearer than the tree
+   **/
+  private void solvePortals(HashMap<Integer, Integer> portals) {
+    int P = portals.size();
+    this.portalCell = new int[P];
+    for (HashMap.Entry<Integer, Integer> e : portals.entrySet()) {
+      this.portalCell[e.getValue()] = e.getKey();
+    }
+    this.portalDist = new long[P * P];
+    this.portalNext = new int[P * P];
+    for (int i = 0; i < P; i++) {
+      for (int j = 0; j < P; j++) {
+        int a = this.portalCell[i];
+        int b = this.portalCell[j];
+        boolean adjacent = this.grid.manhattanDistance(a, b) == 1;
+        this.portalDist[i * P + j] = adjacent ? this.grid.getEdgeCost(a, b) : treeDistance(a, b);
+        this.portalNext[i * P + j] = j;
+      }
+    }
+    for (int k = 0; k < P; k++) {
+      for (int i = 0; i < P; i++) {
+        long ik = this.portalDist[i * P + k];
+        if (ik == UNREACHABLE) {
+          continue;
+        }
+        for (int j = 0; j < P; j++) {
+          long kj = this.portalDist[k * P + j];
+          if (kj != UNREACHABLE && ik + kj < this.portalDist[i * P + j]) {
+            this.portalDist[i * P + j] = ik + kj;
+            this.portalNext[i * P + j] = this.portalNext[i * P + k];
+          }
+        }
+      }
+    }
+  }
+
+  /**********
+   * @return the number of portals, end cells of edges outside the
+   *         spanning forest
+   **/
+  public int getNumPortals() {
+    return this.portalCell.length;
+  }
+
+  /**********
+   * @return the lowest common ancestor of two open cells, or -1 if
+   *         they are in different components
+   **/
+  public int lowestCommonAncestor(int u, int v) {
+    if (this.depth[u] < this.depth[v]) {
+      int t = u;
+      u = v;
+      v = t;
+    }
+    while (this.depth[u] > this.depth[v]) {
+      u = (this.depth[this.jump[u]] >= this.depth[v]) ? this.jump[u] : this.parent[u];
+    }
+    while (u != v) {
+      if (this.parent[u] < 0) {
+        return -1;
+      }
+      // cells of equal depth have jump pointers of equal depth
+      if (this.jump[u] != this.jump[v]) {
+        u = this.jump[u];
+        v = this.jump[v];
+      } else {
+        u = this.parent[u];
+        v = this.parent[v];
+      }
+    }
+    return u;
+  }
+
+  /**********
+   * @return the cost of the tree path between two open cells, or
+   *         Long.MAX_VALUE if they are in different components
+   **/
+  public long treeDistance(int u, int v) {
+    int l = lowestCommonAncestor(u, v);
+    if (l < 0) {
+      return UNREACHABLE;
+    }
+    return this.cost[u] + this.cost[v] - 2 * this.cost[l];
+  }
+
+  /**********
+   * @return the cost of a shortest path between two open cells, or
+   *         Long.MAX_VALUE if there is none
+   **/
+  public long distance(int s, int t) {
+    long[] via = bestPortals(s, t);
+    return via[0];
+  }
+
+  /**********
+   * helper function for distance and path
+   * @return the shortest distance, then the indices of the first and
+   *         last portal on the way, -1 if the tree path is shortest
+   **/
+  private long[] bestPortals(int s, int t) {
+    long best = treeDistance(s, t);
+    long first = -1;
+    long last = -1;
+    int P = this.portalCell.length;
+    if (P == 0) {
+      return new long[] {best, first, last};
+    }
+    long[] toPortal = new long[P];
+    long[] fromPortal = new long[P];
+    for (int p = 0; p < P; p++) {
+      toPortal[p] = treeDistance(s, this.portalCell[p]);
+      fromPortal[p] = treeDistance(this.portalCell[p], t);
+    }
+    for (int p = 0; p < P; p++) {
+      if (toPortal[p] == UNREACHABLE) {
+        continue;
+      }
+      for (int q = 0; q < P; q++) {
+        long mid = this.portalDist[p * P + q];
+        if (mid == UNREACHABLE || fromPortal[q] == UNREACHABLE) {
+          continue;
+        }
+        long d = toPortal[p] + mid + fromPortal[q];
+        if (d < best) {
+          best = d;
+          first = p;
+          last = q;
+        }
+      }
+    }
+    return new long[] {best, first, last};
+  }
+
+  /**********
+   * @return cell ids along a shortest path between two open cells,
+   *         empty if there is none
+   **/
+  public int[] path(int s, int t) {
+    long[] via = bestPortals(s, t);
+    if (via[0] == UNREACHABLE) {
+      return new int[0];
+    }
+    if (via[1] < 0) {
+      return treePath(s, t);
+    }
+    int P = this.portalCell.length;
+    int p = (int) via[1];
+    int q = (int) via[2];
+    int[] out = treePath(s, this.portalCell[p]);
+    while (p != q) {
+      int next = this.portalNext[p * P + q];
+      int a = this.portalCell[p];
+      int b = this.portalCell[next];
+      out = append(out, (this.grid.manhattanDistance(a, b) == 1) ? new int[] {a, b} : treePath(a, b));
+      p = next;
+    }
+    return append(out, treePath(this.portalCell[q], t));
+  }
+
+  /**********
+   * helper function for path
+   * @return the path a followed by the path b, which starts where a
+   *         ends
+   **/
+  private static int[] append(int[] a, int[] b) {
+    int[] out = Arrays.copyOf(a, a.length + b.length - 1);
+    System.arraycopy(b, 1, out, a.length, b.length - 1);
+    return out;
+  }
+
+  /**********
+   * @return cell ids along the tree path between two cells of the same
+   *         component
+   **/
+  private int[] treePath(int u, int v) {
+    int l = lowestCommonAncestor(u, v);
+    int up = this.depth[u] - this.depth[l];
+    int down = this.depth[v] - this.depth[l];
+    int[] out = new int[up + down + 1];
+    for (int i = 0; i <= up; i++) {
+      out[i] = u;
+      u = this.parent[u];
+    }
+    for (int i = up + down; i > up; i--) {
+      out[i] = v;
+      v = this.parent[v];
+    }
+    return out;
+  }
+}
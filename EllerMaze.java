@@ -0,0 +1,292 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Streaming maze generator using Eller's algorithm. The maze is built
+ * one row at a time: adjacent cells in different sets are joined at
+ * random, then every set extends down into the next row through at
+ * least one cell; the last row joins everything that is left. Only the
+ * current row's sets and walls are kept, so memory is O(width), and
+ * each row's pair of file lines is written as soon as it is decided.
+ *
+ * The output has the same label+weight layout as Maze's text files,
+ * including the randomly opened north walls, so MazeGraph reads it
+ * like any other maze.
+ *********************/
+
+public class EllerMaze {
+
+  // number of cells in a maze row (not counting walls)
+  private int gridSize;
+  private SplittableRandom rgen;
+
+  // set label of every cell of the current row, in 0 .. gridSize - 1
+  private int[] set;
+  // union-find over labels, rebuilt every row
+  private int[] parent;
+  // cells of each set left to visit, and whether it extended down yet
+  private int[] remaining;
+  private boolean[] down;
+  // labels taken in the next row
+  private boolean[] used;
+  // walls of the current row
+  private boolean[] north;
+  private boolean[] east;
+  private boolean[] south;
+  // base weight of every cell of the current row
+  private int[] value;
+
+  // one line of the maze file, its text, and the label of its next cell
+  private int[] line;
+  private StringBuilder text = new StringBuilder();
+  private long id;
+  private int tagWidth;
+
+  /**********
+   * creates a generator for mazes with gridSize cells a side
+   **/
+  public EllerMaze(int gridSize) {
+    this(gridSize, new SplittableRandom());
+  }
+
+  /**********
+   * creates a generator whose mazes are fixed by seed
+   **/
+  public EllerMaze(int gridSize, long seed) {
+    this(gridSize, new SplittableRandom(seed));
+  }
+
+  private EllerMaze(int gridSize, SplittableRandom rgen) {
+    if (gridSize < 1 || gridSize > (Integer.MAX_VALUE - 1) / 2) {
+      throw new IllegalArgumentException("Bad maze size " + gridSize);
+    }
+    this.gridSize = gridSize;
+    this.rgen = rgen;
+    this.set = new int[gridSize];
+    this.parent = new int[gridSize];
+    this.remaining = new int[gridSize];
+    this.down = new boolean[gridSize];
+    this.used = new boolean[gridSize];
+    this.north = new boolean[gridSize];
+    this.east = new boolean[gridSize];
+    this.south = new boolean[gridSize];
+    this.value = new int[gridSize];
+    this.line = new int[getFileSize()];
+  }
+
+  /**********
+   * @return number of rows and columns in the maze file,
+   * 2 * gridSize + 1
+   **/
+  public int getFileSize() {
+    return 2 * this.gridSize + 1;
+  }
+
+  /**********
+   * generates a maze and writes it to a file
+   * @param file name
+   **/
+  public void writeToFile(String fname) throws IOException {
+    BufferedWriter out = new BufferedWriter(new FileWriter(fname), 1 << 16);
+    try {
+      write(out);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**********
+   * generates a maze, writing each row's lines to out as it goes
+   **/
+  public void write(Appendable out) throws IOException {
+    int n = getFileSize();
+    this.tagWidth = LabelIndex.tagWidth((long) n * n);
+    this.id = 0;
+    out.append(n + " " + n + "\n");
+    for (int c = 0; c < this.gridSize; c++) {
+      this.set[c] = c;
+      // the entrance is above the first cell
+      this.north[c] = (c != 0);
+    }
+    for (int r = 0; r < this.gridSize; r++) {
+      boolean last = (r == this.gridSize - 1);
+      for (int c = 0; c < this.gridSize; c++) {
+        this.value[c] = this.rgen.nextInt(8) + 1;
+      }
+      joinRow(last);
+      writeConnectorLine(out, r == 0);
+      writeCellLine(out);
+      if (!last) {
+        extendDown();
+      }
+    }
+    writeFinalLine(out);
+  }
+
+  /**********
+   * helper function for write
+   * removes east walls between cells of different sets at random, or
+   * always in the last row, and merges their sets
+   **/
+  private void joinRow(boolean last) {
+    for (int c = 0; c < this.gridSize; c++) {
+      this.parent[c] = c;
+    }
+    for (int c = 0; c < this.gridSize - 1; c++) {
+      int a = find(this.set[c]);
+      int b = find(this.set[c + 1]);
+      if (a != b && (last || this.rgen.nextBoolean())) {
+        this.east[c] = false;
+        this.parent[a] = b;
+      } else {
+        this.east[c] = true;
+      }
+    }
+    this.east[this.gridSize - 1] = true;
+    for (int c = 0; c < this.gridSize; c++) {
+      this.set[c] = find(this.set[c]);
+    }
+  }
+
+  /**********
+   * helper function for joinRow
+   * @return the representative label of label's set
+   **/
+  private int find(int label) {
+    int root = label;
+    while (this.parent[root] != root) {
+      root = this.parent[root];
+    }
+    while (this.parent[label] != root) {
+      int next = this.parent[label];
+      this.parent[label] = root;
+      label = next;
+    }
+    return root;
+  }
+
+  /**********
+   * helper function for write
+   * opens south walls at random so that every set reaches the next
+   * row, then gives the cells below closed walls fresh sets
+   **/
+  private void extendDown() {
+    for (int c = 0; c < this.gridSize; c++) {
+      this.remaining[c] = 0;
+      this.down[c] = false;
+      this.used[c] = false;
+    }
+    for (int c = 0; c < this.gridSize; c++) {
+      this.remaining[this.set[c]]++;
+    }
+    for (int c = 0; c < this.gridSize; c++) {
+      int s = this.set[c];
+      this.remaining[s]--;
+      // the last cell of a set that has not gone down yet must go down
+      boolean open = this.rgen.nextBoolean() || (this.remaining[s] == 0 && !this.down[s]);
+      this.south[c] = !open;
+      if (open) {
+        this.down[s] = true;
+        this.used[s] = true;
+      }
+    }
+    int free = 0;
+    for (int c = 0; c < this.gridSize; c++) {
+      if (this.south[c]) {
+        while (this.used[free]) {
+          free++;
+        }
+        this.used[free] = true;
+        this.set[c] = free;
+      }
+    }
+    boolean[] tmp = this.north;
+    this.north = this.south;
+    this.south = tmp;
+  }
+
+  /**********
+   * helper function for write
+   * @return the weight of cell c of the current row, 0 or 1 above its base
+   **/
+  private int getRandVal(int c) {
+    return this.value[c] + this.rgen.nextInt(2);
+  }
+
+  /**********
+   * helper function for write
+   * writes the line above the current row: an opening or wall above
+   * every cell, and a wall corner between them. As in Maze, the first
+   * line keeps all its walls but the entrance, and every other north
+   * wall stays with probability 1/4
+   **/
+  private void writeConnectorLine(Appendable out, boolean first) throws IOException {
+    this.line[0] = 0;
+    for (int c = 0; c < this.gridSize; c++) {
+      if (this.north[c] && (first || this.rgen.nextInt(4) > 2)) {
+        this.line[2 * c + 1] = 0;
+      } else {
+        this.line[2 * c + 1] = getRandVal(c);
+      }
+      this.line[2 * c + 2] = 0;
+    }
+    writeLine(out);
+  }
+
+  /**********
+   * helper function for write
+   * writes the line of the current row: every cell and the opening or
+   * wall to its east
+   **/
+  private void writeCellLine(Appendable out) throws IOException {
+    this.line[0] = 0;
+    for (int c = 0; c < this.gridSize; c++) {
+      this.line[2 * c + 1] = getRandVal(c);
+      this.line[2 * c + 2] = this.east[c] ? 0 : getRandVal(c);
+    }
+    writeLine(out);
+  }
+
+  /**********
+   * helper function for write
+   * writes the bottom wall, open only at the exit below the last cell
+   **/
+  private void writeFinalLine(Appendable out) throws IOException {
+    this.line[0] = 0;
+    for (int c = 0; c < this.gridSize; c++) {
+      this.line[2 * c + 1] = (c == this.gridSize - 1) ? 1 : 0;
+      this.line[2 * c + 2] = 0;
+    }
+    writeLine(out);
+  }
+
+  /**********
+   * helper function for the line writers
+   * writes line as label+weight tokens
+   **/
+  private void writeLine(Appendable out) throws IOException {
+    this.text.setLength(0);
+    for (int i = 0; i < this.line.length; i++) {
+      LabelIndex.appendTag(this.text, this.id++, this.tagWidth);
+      this.text.append(this.line[i]).append(' ');
+    }
+    this.text.append('\n');
+    out.append(this.text);
+  }
+
+  public static void main(String args[]) throws IOException {
+    if (args.length < 1) {
+      System.out.println("usage: java EllerMaze size [seed]");
+      return;
+    }
+    int gridSize = Integer.parseInt(args[0]);
+    EllerMaze maze = (args.length > 1) ? new EllerMaze(gridSize, Long.parseLong(args[1]))
+                                       : new EllerMaze(gridSize);
+    maze.writeToFile("maze" + args[0] + ".txt");
+    System.out.println("Maze written to maze" + args[0] + ".txt");
+  }
+}
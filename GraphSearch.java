@@ -0,0 +1,388 @@
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * The single-threaded maze solvers, written against SearchGraph so
+ * they run on the grid as well as on its corridor-contracted form.
+ * Every solver keeps its state in a SearchContext sized for the
+ * graph, takes vertex ids and returns the vertex ids along the path
+ * it found, or an empty array if there is none.
+ *
+ * The breadth-first solvers count edges, which on the grid are steps
+ * between cells; the others minimize the summed edge cost.
+ *********************/
+
+public class GraphSearch {
+
+  // largest edge cost Dial's algorithm is used for; a bucket queue
+  // needs one bucket per possible cost
+  public static final long MAX_DIAL_EDGE_COST = 1 << 16;
+
+  /**********
+   * A solver as a value, so a caller can choose the graph it runs on
+   **/
+  public interface Solver {
+    /**********
+     * @Param graph, start and end vertex ids
+     * @Return vertex ids along the found path, empty if there is none
+     **/
+    int[] search(SearchGraph g, int start, int end);
+  }
+
+  /**********
+   * DFS between two vertices, keeping all search state in ctx
+   * @Param graph, start and end vertex ids, context to search with
+   * @Return vertex ids along the found path, empty if there is none
+   **/
+  public static int[] depthFirst(SearchGraph g, int start, int end, SearchContext ctx) {
+    ctx.reset();
+    // every vertex is pushed at most once, so the stack never exceeds n
+    int[] S = ctx.getScratch();
+    int top = 0;
+    int[] nbrs = new int[g.getMaxDegree()];
+    ctx.reach(start, 0, -1);
+    S[top++] = start;
+    while (top != 0) {
+      int currentVert = S[--top];
+      if (currentVert == end) {
+        return ctx.getPath(end);
+      }
+      long d = ctx.getDistance(currentVert) + 1;
+      int count = g.getNeighbors(currentVert, nbrs);
+      for (int i = 0; i < count; i++) {
+        int nb = nbrs[i];
+        if (!ctx.isReached(nb)) {
+          ctx.reach(nb, d, currentVert);
+          S[top++] = nb;
+        }
+      }
+    }
+    return new int[0];
+  }
+
+  /**********
+   * BFS between two vertices, keeping all search state in ctx
+   * @Param graph, start and end vertex ids, context to search with
+   * @Return vertex ids along a path with the fewest edges, empty if
+   * there is none
+   **/
+  public static int[] breadthFirst(SearchGraph g, int start, int end, SearchContext ctx) {
+    ctx.reset();
+    int[] Q = ctx.getScratch();
+    int head = 0;
+    int tail = 0;
+    int[] nbrs = new int[g.getMaxDegree()];
+    ctx.reach(start, 0, -1);
+    Q[tail++] = start;
+    while (head != tail) {
+      int currentVert = Q[head++];
+      if (currentVert == end) {
+        return ctx.getPath(end);
+      }
+      long d = ctx.getDistance(currentVert) + 1;
+      int count = g.getNeighbors(currentVert, nbrs);
+      for (int i = 0; i < count; i++) {
+        int nb = nbrs[i];
+        if (!ctx.isReached(nb)) {
+          ctx.reach(nb, d, currentVert);
+          Q[tail++] = nb;
+        }
+      }
+    }
+    return new int[0];
+  }
+
+  /**********
+   * Dijkstra search between two vertices, keeping all search state in
+   * ctx
+   * @Param graph, start and end vertex ids, context to search with
+   * @Return vertex ids along the found path, empty if there is none
+   **/
+  public static int[] dijkstra(SearchGraph g, int start, int end, SearchContext ctx) {
+    ctx.reset();
+    IndexedMinHeap PQ = ctx.getHeap();
+    int[] nbrs = new int[g.getMaxDegree()];
+    ctx.reach(start, 0, -1);
+    PQ.insert(start, 0);
+    while (!PQ.isEmpty()) {
+      int currentVert = PQ.poll();
+      // once polled, a vertex's distance is final
+      ctx.close(currentVert);
+      if (currentVert == end) {
+        return ctx.getPath(end);
+      }
+      long currentDist = ctx.getDistance(currentVert);
+      int count = g.getNeighbors(currentVert, nbrs);
+      for (int i = 0; i < count; i++) {
+        int nb = nbrs[i];
+        if (ctx.isClosed(nb)) {
+          continue;
+        }
+        // compute the edge weight between n and currentVert
+        long d = currentDist + g.getEdgeCost(currentVert, nb);
+        if (!ctx.isReached(nb)) {
+          ctx.reach(nb, d, currentVert);
+          PQ.insert(nb, d);
+        } else if (d < ctx.getDistance(nb)) {
+          // found a shorter way to a queued vertex: relax it
+          ctx.reach(nb, d, currentVert);
+          PQ.decreaseKey(nb, d);
+        }
+      }
+    }
+    return new int[0];
+  }
+
+  /**********
+   * Dijkstra search from one vertex until every vertex it reaches is
+   * settled. Nothing is returned; the distances and predecessors are
+   * left in ctx
+   * @Param graph, start vertex id, context to search with
+   **/
+  public static void distancesFrom(SearchGraph g, int start, SearchContext ctx) {
+    dijkstra(g, start, -1, ctx);
+  }
+
+  /**********
+   * Dial's algorithm between two vertices, keeping all search state in
+   * ctx. Edge costs are small integers, so the queue is a ring of
+   * buckets indexed by distance instead of a comparison heap. Falls
+   * back to dijkstra when the costs are too large for buckets
+   * @Param graph, start and end vertex ids, context to search with
+   * @Return vertex ids along the found path, empty if there is none
+   **/
+  public static int[] dial(SearchGraph g, int start, int end, SearchContext ctx) {
+    long maxCost = g.getMaxEdgeCost();
+    if (maxCost > MAX_DIAL_EDGE_COST) {
+      return dijkstra(g, start, end, ctx);
+    }
+    ctx.reset();
+    BucketQueue Q = ctx.getBucketQueue((int) maxCost);
+    int[] nbrs = new int[g.getMaxDegree()];
+    ctx.reach(start, 0, -1);
+    Q.insert(start, 0);
+    while (!Q.isEmpty()) {
+      int currentVert = Q.poll();
+      ctx.close(currentVert);
+      if (currentVert == end) {
+        return ctx.getPath(end);
+      }
+      long currentDist = ctx.getDistance(currentVert);
+      int count = g.getNeighbors(currentVert, nbrs);
+      for (int i = 0; i < count; i++) {
+        int nb = nbrs[i];
+        if (ctx.isClosed(nb)) {
+          continue;
+        }
+        long d = currentDist + g.getEdgeCost(currentVert, nb);
+        if (!ctx.isReached(nb)) {
+          ctx.reach(nb, d, currentVert);
+          Q.insert(nb, d);
+        } else if (d < ctx.getDistance(nb)) {
+          ctx.reach(nb, d, currentVert);
+          Q.decreaseKey(nb, d);
+        }
+      }
+    }
+    return new int[0];
+  }
+
+  /**********
+   * A* search between two vertices, keeping all search state in ctx.
+   * The heuristic is the graph's cost lower bound to end, which never
+   * overestimates and is consistent, so the path is as short as
+   * Dijkstra's. Among equal estimates the vertex farthest from the
+   * start is expanded first
+   * @Param graph, start and end vertex ids, context to search with
+   * @Return vertex ids along the found path, empty if there is none
+   **/
+  public static int[] aStar(SearchGraph g, int start, int end, SearchContext ctx) {
+    ctx.reset();
+    IndexedMinHeap PQ = ctx.getHeap();
+    int[] nbrs = new int[g.getMaxDegree()];
+    ctx.reach(start, 0, -1);
+    PQ.insert(start, g.getCostLowerBound(start, end), 0);
+    while (!PQ.isEmpty()) {
+      int currentVert = PQ.poll();
+      ctx.close(currentVert);
+      if (currentVert == end) {
+        return ctx.getPath(end);
+      }
+      long currentDist = ctx.getDistance(currentVert);
+      int count = g.getNeighbors(currentVert, nbrs);
+      for (int i = 0; i < count; i++) {
+        int nb = nbrs[i];
+        if (ctx.isClosed(nb)) {
+          continue;
+        }
+        long d = currentDist + g.getEdgeCost(currentVert, nb);
+        long f = d + g.getCostLowerBound(nb, end);
+        if (!ctx.isReached(nb)) {
+          ctx.reach(nb, d, currentVert);
+          PQ.insert(nb, f, -d);
+        } else if (d < ctx.getDistance(nb)) {
+          ctx.reach(nb, d, currentVert);
+          PQ.decreaseKey(nb, f, -d);
+        }
+      }
+    }
+    return new int[0];
+  }
+
+  /**********
+   * Bidirectional BFS between two vertices. The graph is undirected,
+   * so a second BFS grows backwards from end; each round expands one
+   * whole level of whichever frontier is smaller. Once a level touches
+   * the other side, the best meeting in that level gives a path with
+   * the fewest edges
+   * @Param graph, start and end vertex ids, contexts for the forward
+   * and backward searches
+   * @Return vertex ids along the found path, empty if there is none
+   **/
+  public static int[] bidirectionalBreadthFirst(SearchGraph g, int start, int end,
+                                                SearchContext fwd, SearchContext bwd) {
+    fwd.reset();
+    bwd.reset();
+    fwd.reach(start, 0, -1);
+    bwd.reach(end, 0, -1);
+    if (start == end) {
+      return fwd.getPath(end);
+    }
+    int[] fQ = fwd.getScratch();
+    int[] bQ = bwd.getScratch();
+    // each frontier is Q[head .. tail)
+    int fHead = 0;
+    int fTail = 0;
+    int bHead = 0;
+    int bTail = 0;
+    fQ[fTail++] = start;
+    bQ[bTail++] = end;
+    int[] nbrs = new int[g.getMaxDegree()];
+    long best = Long.MAX_VALUE;
+    int meetA = -1;
+    int meetB = -1;
+    while (fHead != fTail && bHead != bTail) {
+      boolean forward = fTail - fHead <= bTail - bHead;
+      SearchContext ctx = forward ? fwd : bwd;
+      SearchContext other = forward ? bwd : fwd;
+      int[] Q = forward ? fQ : bQ;
+      int head = forward ? fHead : bHead;
+      int tail = forward ? fTail : bTail;
+      int levelEnd = tail;
+      while (head != levelEnd) {
+        int currentVert = Q[head++];
+        long d = ctx.getDistance(currentVert) + 1;
+        int count = g.getNeighbors(currentVert, nbrs);
+        for (int i = 0; i < count; i++) {
+          int nb = nbrs[i];
+          if (other.isReached(nb)) {
+            long total = d + other.getDistance(nb);
+            if (total < best) {
+              best = total;
+              meetA = forward ? currentVert : nb;
+              meetB = forward ? nb : currentVert;
+            }
+          }
+          if (!ctx.isReached(nb)) {
+            ctx.reach(nb, d, currentVert);
+            Q[tail++] = nb;
+          }
+        }
+      }
+      if (forward) {
+        fHead = head;
+        fTail = tail;
+      } else {
+        bHead = head;
+        bTail = tail;
+      }
+      if (meetA != -1) {
+        return joinPaths(fwd, meetA, bwd, meetB);
+      }
+    }
+    return new int[0];
+  }
+
+  /**********
+   * Bidirectional Dijkstra between two vertices. A forward search from
+   * start and a backward search from end settle one vertex at a time,
+   * always on the side with the smaller queue. Every edge scanned
+   * into the other side's reached set is a candidate connection; the
+   * search stops once the two smallest queued distances add up to at
+   * least the best candidate, which is then a shortest path
+   * @Param graph, start and end vertex ids, contexts for the forward
+   * and backward searches
+   * @Return vertex ids along the found path, empty if there is none
+   **/
+  public static int[] bidirectionalDijkstra(SearchGraph g, int start, int end,
+                                            SearchContext fwd, SearchContext bwd) {
+    fwd.reset();
+    bwd.reset();
+    IndexedMinHeap fPQ = fwd.getHeap();
+    IndexedMinHeap bPQ = bwd.getHeap();
+    fwd.reach(start, 0, -1);
+    bwd.reach(end, 0, -1);
+    if (start == end) {
+      return fwd.getPath(end);
+    }
+    fPQ.insert(start, 0);
+    bPQ.insert(end, 0);
+    int[] nbrs = new int[g.getMaxDegree()];
+    long best = Long.MAX_VALUE;
+    int meetA = -1;
+    int meetB = -1;
+    while (!fPQ.isEmpty() && !bPQ.isEmpty()) {
+      if (fPQ.getKey(fPQ.peek()) + bPQ.getKey(bPQ.peek()) >= best) {
+        break;
+      }
+      boolean forward = fPQ.size() <= bPQ.size();
+      SearchContext ctx = forward ? fwd : bwd;
+      SearchContext other = forward ? bwd : fwd;
+      IndexedMinHeap PQ = forward ? fPQ : bPQ;
+      int currentVert = PQ.poll();
+      ctx.close(currentVert);
+      long currentDist = ctx.getDistance(currentVert);
+      int count = g.getNeighbors(currentVert, nbrs);
+      for (int i = 0; i < count; i++) {
+        int nb = nbrs[i];
+        long d = currentDist + g.getEdgeCost(currentVert, nb);
+        if (other.isReached(nb) && d + other.getDistance(nb) < best) {
+          best = d + other.getDistance(nb);
+          meetA = forward ? currentVert : nb;
+          meetB = forward ? nb : currentVert;
+        }
+        if (ctx.isClosed(nb)) {
+          continue;
+        }
+        if (!ctx.isReached(nb)) {
+          ctx.reach(nb, d, currentVert);
+          PQ.insert(nb, d);
+        } else if (d < ctx.getDistance(nb)) {
+          ctx.reach(nb, d, currentVert);
+          PQ.decreaseKey(nb, d);
+        }
+      }
+    }
+    if (meetA == -1) {
+      return new int[0];
+    }
+    return joinPaths(fwd, meetA, bwd, meetB);
+  }
+
+  /**********
+   * helper function for the bidirectional searches
+   * @Param forward context and the vertex where its half ends, backward
+   * context and the adjacent vertex where its half ends
+   * @Return the forward path to a followed by the backward path from
+   * b to the end
+   **/
+  private static int[] joinPaths(SearchContext fwd, int a, SearchContext bwd, int b) {
+    int[] front = fwd.getPath(a);
+    int[] back = bwd.getPath(b);
+    int[] path = new int[front.length + back.length];
+    System.arraycopy(front, 0, path, 0, front.length);
+    for (int i = 0; i < back.length; i++) {
+      path[front.length + i] = back[back.length - 1 - i];
+    }
+    return path;
+  }
+}
@@ -0,0 +1,340 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Grid-native graph for square mazes. Every cell is addressed by
+ * its id (row * size + col), weights live in one flat array and the
+ * four neighbors of a cell are derived arithmetically, so no vertex
+ * objects or hashing are needed to search the maze.
+ *
+ * The weights are either an int array or, for mazes loaded from the
+ * binary format, nibble-packed bytes read in place from a mapped
+ * file (cell 2k in the low nibble of byte k, cell 2k + 1 in the high
+ * nibble). Snapshots whose weights do not fit in a nibble are read in
+ * place as an int buffer instead, see MazeSnapshot.
+ *
+ * A weight of 0 marks a wall; any other weight is an open cell.
+ * The cost of moving between two open cells is the sum of their
+ * weights, the same rule ShortestPathSearch has always used.
+ *
+ * Weights can be changed in place with setWeight; a grid reading a
+ * buffer copies its weights into an array on the first change.
+ *********************/
+
+public class GridGraph implements SearchGraph {
+
+  // width, or height of the maze
+  private int size;
+  // number of cells, walls included
+  private int numCells;
+  // weight of every cell in row-major order, 0 for walls; null when
+  // the weights are read from a buffer
+  private int[] weights;
+  // nibble-packed weights, null unless they are used
+  private ByteBuffer packed;
+  // weights read in place from a buffer, null unless they are used
+  private IntBuffer wide;
+  // number of open (non-wall) cells
+  private int numOpen;
+  // largest weight of any cell, and smallest of any open cell, 0 if
+  // there are none; after edits these are only bounds on the weights
+  private int maxWeight;
+  private int minWeight;
+
+  /**********
+   * creates a grid graph from row-major cell weights
+   * @param width of the square grid, its cell weights
+   **/
+  public GridGraph(int size, int[] weights) {
+    if (weights.length != size * size) {
+      throw new IllegalArgumentException("Expected " + (size * size) +
+                                         " weights, got " + weights.length);
+    }
+    this.size = size;
+    this.numCells = weights.length;
+    this.weights = weights;
+    scanWeights();
+  }
+
+  /**********
+   * creates a grid graph that reads nibble-packed weights in place
+   * @param width of the square grid, buffer whose bytes from index 0
+   *        hold the packed weights
+   **/
+  public GridGraph(int size, ByteBuffer packed) {
+    this.size = size;
+    this.numCells = size * size;
+    if (packed.capacity() < (this.numCells + 1) / 2) {
+      throw new IllegalArgumentException("Expected " + ((this.numCells + 1) / 2) +
+                                         " bytes of weights, got " + packed.capacity());
+    }
+    this.packed = packed;
+    scanWeights();
+  }
+
+  /**********
+   * creates a grid graph that reads its weights in place from an int
+   * buffer
+   * @param width of the square grid, buffer whose ints from index 0
+   *        hold the row-major weights
+   **/
+  public GridGraph(int size, IntBuffer wide) {
+    this.size = size;
+    this.numCells = size * size;
+    if (wide.capacity() < this.numCells) {
+      throw new IllegalArgumentException("Expected " + this.numCells +
+                                         " weights, got " + wide.capacity());
+    }
+    this.wide = wide;
+    scanWeights();
+  }
+
+  /**********
+   * helper function for the constructors
+   * counts the open cells and finds the smallest and largest weight
+   **/
+  private void scanWeights() {
+    for (int i = 0; i < this.numCells; i++) {
+      int w = weightAt(i);
+      if (w < 0) {
+        throw new IllegalArgumentException("Negative weight at cell " + i);
+      }
+      if (w != 0) {
+        this.numOpen++;
+        if (this.minWeight == 0 || w < this.minWeight) {
+          this.minWeight = w;
+        }
+      }
+      this.maxWeight = Math.max(this.maxWeight, w);
+    }
+  }
+
+  /**********
+   * @return the weight of cell id from whichever storage is in use
+   **/
+  private int weightAt(int id) {
+    if (this.weights != null) {
+      return this.weights[id];
+    }
+    if (this.wide != null) {
+      return this.wide.get(id);
+    }
+    int b = this.packed.get(id >>> 1);
+    return (id & 1) == 0 ? b & 0x0f : (b >>> 4) & 0x0f;
+  }
+
+  /**********
+   * @return width, or height of the grid
+   **/
+  public int getSize() {
+    return this.size;
+  }
+
+  /**********
+   * @return number of cells in the grid, walls included
+   **/
+  public int getNumCells() {
+    return this.numCells;
+  }
+
+  /**********
+   * @return number of non-wall cells
+   **/
+  public int getNumOpen() {
+    return this.numOpen;
+  }
+
+  /**********
+   * @return the id of the cell at the given row and column
+   **/
+  public int cellId(int row, int col) {
+    return row * this.size + col;
+  }
+
+  /**********
+   * @return the row of the given cell
+   **/
+  public int rowOf(int id) {
+    return id / this.size;
+  }
+
+  /**********
+   * @return the column of the given cell
+   **/
+  public int colOf(int id) {
+    return id % this.size;
+  }
+
+  /**********
+   * @return whether the given cell is inside the grid and not a wall
+   **/
+  public boolean isOpen(int id) {
+    return id >= 0 && id < this.numCells && weightAt(id) != 0;
+  }
+
+  /**********
+   * @return the weight of the given cell, 0 for walls
+   **/
+  public int getWeight(int id) {
+    return weightAt(id);
+  }
+
+  /**********
+   * Changes the weight of a cell, 0 to make it a wall. The largest and
+   * smallest weights are not scanned for again, so after a change
+   * they are bounds: no smaller and no larger than the real ones
+   * @param cell id, its new weight
+   **/
+  public void setWeight(int id, int w) {
+    if (w < 0) {
+      throw new IllegalArgumentException("Negative weight at cell " + id);
+    }
+    if (this.weights == null) {
+      int[] copy = new int[this.numCells];
+      for (int i = 0; i < this.numCells; i++) {
+        copy[i] = weightAt(i);
+      }
+      this.weights = copy;
+      this.packed = null;
+      this.wide = null;
+    }
+    int old = this.weights[id];
+    if (old == 0 && w != 0) {
+      this.numOpen++;
+    } else if (old != 0 && w == 0) {
+      this.numOpen--;
+    }
+    this.weights[id] = w;
+    this.maxWeight = Math.max(this.maxWeight, w);
+    if (w != 0 && (this.minWeight == 0 || w < this.minWeight)) {
+      this.minWeight = w;
+    }
+  }
+
+  /**********
+   * @return the largest weight of any cell, or a bound on it after
+   *         setWeight
+   **/
+  public int getMaxWeight() {
+    return this.maxWeight;
+  }
+
+  /**********
+   * @return the smallest weight of any open cell, 0 if there are none,
+   *         or a bound on it after setWeight
+   **/
+  public int getMinWeight() {
+    return this.minWeight;
+  }
+
+  /**********
+   * @return a lower bound on the cost of any edge
+   **/
+  public long getMinEdgeCost() {
+    return 2L * this.minWeight;
+  }
+
+  /**********
+   * @return an upper bound on the cost of any edge
+   **/
+  public long getMaxEdgeCost() {
+    return 2L * this.maxWeight;
+  }
+
+  /**********
+   * @return the cost of the edge between two adjacent open cells
+   **/
+  public long getEdgeCost(int a, int b) {
+    return (long) weightAt(a) + weightAt(b);
+  }
+
+  /**********
+   * @return the cheapest edge times the number of steps between two
+   *         cells if there were no walls
+   **/
+  public long getCostLowerBound(int a, int b) {
+    return getMinEdgeCost() * manhattanDistance(a, b);
+  }
+
+  /**********
+   * @return the number of steps between two cells if there were no walls
+   **/
+  public int manhattanDistance(int a, int b) {
+    return Math.abs(a / this.size - b / this.size) + Math.abs(a % this.size - b % this.size);
+  }
+
+  /**********
+   * @return number of cells, each a vertex id for the solvers
+   **/
+  public int getNumNodes() {
+    return this.numCells;
+  }
+
+  /**********
+   * @return 4, a cell's neighbors up, down, left and right
+   **/
+  public int getMaxDegree() {
+    return 4;
+  }
+
+  /**********
+   * Writes the open neighbors of a cell into out, in the order
+   * up, down, left, right
+   * @param cell id, an array with room for at least 4 ids
+   * @return the number of neighbors written
+   **/
+  public int getNeighbors(int id, int[] out) {
+    int n = 0;
+    int row = id / this.size;
+    int col = id - row * this.size;
+    if (row > 0 && weightAt(id - this.size) != 0) {
+      out[n++] = id - this.size;
+    }
+    if (row < this.size - 1 && weightAt(id + this.size) != 0) {
+      out[n++] = id + this.size;
+    }
+    if (col > 0 && weightAt(id - 1) != 0) {
+      out[n++] = id - 1;
+    }
+    if (col < this.size - 1 && weightAt(id + 1) != 0) {
+      out[n++] = id + 1;
+    }
+    return n;
+  }
+
+  /**********
+   * @return the number of open neighbors of a cell
+   **/
+  public int getDegree(int id) {
+    int n = 0;
+    int row = id / this.size;
+    int col = id - row * this.size;
+    if (row > 0 && weightAt(id - this.size) != 0) { n++; }
+    if (row < this.size - 1 && weightAt(id + this.size) != 0) { n++; }
+    if (col > 0 && weightAt(id - 1) != 0) { n++; }
+    if (col < this.size - 1 && weightAt(id + 1) != 0) { n++; }
+    return n;
+  }
+
+  /**********
+   * @return the number of edges between open cells
+   **/
+  public int getNumEdges() {
+    int edges = 0;
+    for (int id = 0; id < this.numCells; id++) {
+      if (weightAt(id) == 0) {
+        continue;
+      }
+      // count each edge once, from its upper or left end
+      if (id % this.size < this.size - 1 && weightAt(id + 1) != 0) {
+        edges++;
+      }
+      if (id + this.size < this.numCells && weightAt(id + this.size) != 0) {
+        edges++;
+      }
+    }
+    return edges;
+  }
+}
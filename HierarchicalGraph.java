@@ -0,0 +1,715 @@
+import java.util.Arrays;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Two-level abstraction of a grid graph for hierarchical path-finding
+ * (HPA*). The grid is cut into square clusters. Wherever two
+ * neighboring clusters share a run of open cell pairs across their
+ * border there is an entrance: the middle pair of a short run, both
+ * end pairs of a long one. The cells of every entrance are the
+ * vertices of the abstract graph. Inside a cluster, every two of its
+ * vertices are joined by the cost of the cheapest path between them
+ * that stays in the cluster; across an entrance, by its step cost.
+ *
+ * A query adds the start and end cells, joined to the vertices of
+ * their own clusters, searches the abstract graph and expands each
+ * abstract edge back into cells with a search inside one cluster.
+ * Paths found are real paths, as short as any path that crosses
+ * borders only at entrances, which on a maze of one-cell corridors
+ * is nearly always the shortest.
+ *
+ * After a cell's weight changes, update rebuilds only its cluster and
+ * the vertices and distances of the clusters around it. Queries must
+ * not run during an update.
+ *********************/
+
+public class HierarchicalGraph implements SearchGraph {
+
+  // width, or height of a cluster
+  public static final int DEFAULT_CLUSTER_SIZE = 16;
+  // runs of open pairs at least this long get an entrance at each end
+  private static final int LONG_RUN = 6;
+  private static final long UNREACHABLE = Long.MAX_VALUE;
+
+  private GridGraph grid;
+  private int size;
+  private int clusterSize;
+  // clusters per row, or per column
+  private int clustersPerSide;
+  // the cell, cluster and index within the cluster of every abstract
+  // vertex; cell -1 marks a free id
+  private int[] nodeCell;
+  private int[] nodeCluster;
+  private int[] nodeIndex;
+  // the vertices across entrances from every vertex, two slots each,
+  // -1 for empty; a cell touches at most two borders
+  private int[] partner;
+  // ids of removed vertices, reused before new ones
+  private int[] free;
+  private int numFree;
+  private int capacity;
+  // for every cluster: its vertices, and the in-cluster distance
+  // between its i-th and j-th vertex at [i * count + j]
+  private int[][] clusterNodes;
+  private long[][] clusterDist;
+  // most vertices any cluster has had
+  private int maxClusterNodes;
+
+  /**********
+   * builds the abstraction of a grid with clusters of the default size
+   * @param the grid
+   **/
+  public HierarchicalGraph(GridGraph grid) {
+    this(grid, DEFAULT_CLUSTER_SIZE);
+  }
+
+  /**********
+   * builds the abstraction of a grid
+   * @param the grid, width of a cluster, at least 2
+   **/
+  public HierarchicalGraph(GridGraph grid, int clusterSize) {
+    if (clusterSize < 2) {
+      throw new IllegalArgumentException("Clusters must be at least 2 cells wide, got " + clusterSize);
+    }
+    this.grid = grid;
+    this.size = grid.getSize();
+    this.clusterSize = clusterSize;
+    this.clustersPerSide = (this.size + clusterSize - 1) / clusterSize;
+    int numClusters = this.clustersPerSide * this.clustersPerSide;
+    this.capacity = 16;
+    this.nodeCell = new int[this.capacity];
+    this.nodeCluster = new int[this.capacity];
+    this.nodeIndex = new int[this.capacity];
+    this.partner = new int[2 * this.capacity];
+    this.free = new int[this.capacity];
+    this.clusterNodes = new int[numClusters][];
+    this.clusterDist = new long[numClusters][];
+    for (int k = 0; k < numClusters; k++) {
+      this.clusterNodes[k] = new int[0];
+    }
+    // node ids are handed out from the free list, so it starts full
+    for (int v = this.capacity - 1; v >= 0; v--) {
+      this.nodeCell[v] = -1;
+      this.free[this.numFree++] = v;
+    }
+    for (int k = 0; k < numClusters; k++) {
+      addEntrances(k, k + 1);
+      addEntrances(k, k + this.clustersPerSide);
+    }
+    ClusterView view = new ClusterView();
+    SearchContext ctx = new SearchContext(clusterSize * clusterSize);
+    for (int k = 0; k < numClusters; k++) {
+      computeDistances(k, view, ctx);
+    }
+  }
+
+  /**********
+   * @return the grid this abstraction was built from
+   **/
+  public GridGraph getGrid() {
+    return this.grid;
+  }
+
+  /**********
+   * @return the width of a cluster
+   **/
+  public int getClusterSize() {
+    return this.clusterSize;
+  }
+
+  /**********
+   * @return the number of clusters
+   **/
+  public int getNumClusters() {
+    return this.clusterNodes.length;
+  }
+
+  /**********
+   * @return the number of abstract vertices, entrance cells
+   **/
+  public int getNumEntranceCells() {
+    return this.capacity - this.numFree;
+  }
+
+  /**********
+   * @return the cluster holding a cell
+   **/
+  public int clusterOf(int cell) {
+    int row = cell / this.size;
+    int col = cell - row * this.size;
+    return (row / this.clusterSize) * this.clustersPerSide + col / this.clusterSize;
+  }
+
+  /**********
+   * Rebuilds what a change of one cell's weight affects: the
+   * entrances on the borders of its cluster, and the distances inside
+   * its cluster and the clusters sharing those borders
+   * @param the cell whose weight changed
+   **/
+  public void update(int cell) {
+    int k = clusterOf(cell);
+    int row = k / this.clustersPerSide;
+    int col = k % this.clustersPerSide;
+    // drop every vertex of k, with the partners that only it kept
+    int[] own = this.clusterNodes[k];
+    int[] touched = new int[4];
+    int numTouched = 0;
+    for (int i = 0; i < own.length; i++) {
+      int v = own[i];
+      for (int slot = 0; slot < 2; slot++) {
+        int p = this.partner[2 * v + slot];
+        if (p >= 0) {
+          unlink(p, v);
+          if (this.partner[2 * p] < 0 && this.partner[2 * p + 1] < 0) {
+            removeNode(p);
+          }
+        }
+      }
+      freeNode(v);
+    }
+    this.clusterNodes[k] = new int[0];
+    if (col > 0) {
+      addEntrances(k - 1, k);
+      touched[numTouched++] = k - 1;
+    }
+    if (col + 1 < this.clustersPerSide) {
+      addEntrances(k, k + 1);
+      touched[numTouched++] = k + 1;
+    }
+    if (row > 0) {
+      addEntrances(k - this.clustersPerSide, k);
+      touched[numTouched++] = k - this.clustersPerSide;
+    }
+    if (row + 1 < this.clustersPerSide) {
+      addEntrances(k, k + this.clustersPerSide);
+      touched[numTouched++] = k + this.clustersPerSide;
+    }
+    ClusterView view = new ClusterView();
+    SearchContext ctx = new SearchContext(this.clusterSize * this.clusterSize);
+    computeDistances(k, view, ctx);
+    for (int i = 0; i < numTouched; i++) {
+      computeDistances(touched[i], view, ctx);
+    }
+  }
+
+  /**********
+   * helper function for the constructor and update
+   * adds the entrances across the border between cluster a and the
+   * cluster b to its right or below it
+   * @param the two clusters
+   **/
+  private void addEntrances(int a, int b) {
+    int aRow = a / this.clustersPerSide;
+    int aCol = a % this.clustersPerSide;
+    int bRow = b / this.clustersPerSide;
+    int bCol = b % this.clustersPerSide;
+    if (bRow >= this.clustersPerSide || bCol >= this.clustersPerSide ||
+        (bRow != aRow && bCol != aCol)) {
+      return;
+    }
+    // the border's cells on a's side step by along to the next pair,
+    // and by across to their partner on b's side
+    int first;
+    int length;
+    int along;
+    int across;
+    if (bRow == aRow) {
+      int col = (aCol + 1) * this.clusterSize - 1;
+      int row0 = aRow * this.clusterSize;
+      first = row0 * this.size + col;
+      length = Math.min(this.clusterSize, this.size - row0);
+      along = this.size;
+      across = 1;
+    } else {
+      int row = (aRow + 1) * this.clusterSize - 1;
+      int col0 = aCol * this.clusterSize;
+      first = row * this.size + col0;
+      length = Math.min(this.clusterSize, this.size - col0);
+      along = 1;
+      across = this.size;
+    }
+    int runStart = -1;
+    for (int i = 0; i <= length; i++) {
+      boolean open = i < length && this.grid.isOpen(first + i * along) &&
+          this.grid.isOpen(first + i * along + across);
+      if (open && runStart < 0) {
+        runStart = i;
+      } else if (!open && runStart >= 0) {
+        int runLength = i - runStart;
+        if (runLength >= LONG_RUN) {
+          addEntrance(first + runStart * along, across);
+          addEntrance(first + (i - 1) * along, across);
+        } else {
+          addEntrance(first + (runStart + runLength / 2) * along, across);
+        }
+        runStart = -1;
+      }
+    }
+  }
+
+  /**********
+   * helper function for addEntrances
+   * joins the vertex of cell to the vertex of the cell across from it
+   * @param a border cell, the step to the cell across the border
+   **/
+  private void addEntrance(int cell, int across) {
+    int u = nodeAt(cell);
+    int v = nodeAt(cell + across);
+    link(u, v);
+    link(v, u);
+  }
+
+  /**********
+   * helper function for addEntrance
+   * @return the vertex of a cell, made if the cell has none
+   **/
+  private int nodeAt(int cell) {
+    int k = clusterOf(cell);
+    int[] nodes = this.clusterNodes[k];
+    for (int i = 0; i < nodes.length; i++) {
+      if (this.nodeCell[nodes[i]] == cell) {
+        return nodes[i];
+      }
+    }
+    if (this.numFree == 0) {
+      grow();
+    }
+    int v = this.free[--this.numFree];
+    this.nodeCell[v] = cell;
+    this.nodeCluster[v] = k;
+    this.nodeIndex[v] = nodes.length;
+    this.partner[2 * v] = -1;
+    this.partner[2 * v + 1] = -1;
+    nodes = Arrays.copyOf(nodes, nodes.length + 1);
+    nodes[nodes.length - 1] = v;
+    this.clusterNodes[k] = nodes;
+    this.maxClusterNodes = Math.max(this.maxClusterNodes, nodes.length);
+    return v;
+  }
+
+  /**********
+   * helper function for nodeAt
+   * doubles the room for vertices, freeing the new ids
+   **/
+  private void grow() {
+    int old = this.capacity;
+    this.capacity = 2 * old;
+    this.nodeCell = Arrays.copyOf(this.nodeCell, this.capacity);
+    this.nodeCluster = Arrays.copyOf(this.nodeCluster, this.capacity);
+    this.nodeIndex = Arrays.copyOf(this.nodeIndex, this.capacity);
+    this.partner = Arrays.copyOf(this.partner, 2 * this.capacity);
+    this.free = Arrays.copyOf(this.free, this.capacity);
+    for (int v = this.capacity - 1; v >= old; v--) {
+      this.nodeCell[v] = -1;
+      this.free[this.numFree++] = v;
+    }
+  }
+
+  /**********
+   * helper function for addEntrance
+   * records p as across an entrance from v, once
+   **/
+  private void link(int v, int p) {
+    if (this.partner[2 * v] == p || this.partner[2 * v + 1] == p) {
+      return;
+    }
+    this.partner[this.partner[2 * v] < 0 ? 2 * v : 2 * v + 1] = p;
+  }
+
+  /**********
+   * helper function for update
+   * forgets that p is across an entrance from v
+   **/
+  private void unlink(int v, int p) {
+    for (int slot = 0; slot < 2; slot++) {
+      if (this.partner[2 * v + slot] == p) {
+        this.partner[2 * v + slot] = -1;
+      }
+    }
+  }
+
+  /**********
+   * helper function for update
+   * takes a vertex out of its cluster's list and frees its id
+   **/
+  private void removeNode(int v) {
+    int k = this.nodeCluster[v];
+    int[] nodes = this.clusterNodes[k];
+    int[] kept = new int[nodes.length - 1];
+    int n = 0;
+    for (int i = 0; i < nodes.length; i++) {
+      if (nodes[i] != v) {
+        this.nodeIndex[nodes[i]] = n;
+        kept[n++] = nodes[i];
+      }
+    }
+    this.clusterNodes[k] = kept;
+    freeNode(v);
+  }
+
+  /**********
+   * helper function for update and removeNode
+   **/
+  private void freeNode(int v) {
+    this.nodeCell[v] = -1;
+    this.free[this.numFree++] = v;
+  }
+
+  /**********
+   * helper function for the constructor and update
+   * runs a search inside cluster k from each of its vertices to fill
+   * in the distances between them
+   * @param the cluster, a view and a context to search with
+   **/
+  private void computeDistances(int k, ClusterView view, SearchContext ctx) {
+    int[] nodes = this.clusterNodes[k];
+    int count = nodes.length;
+    long[] dist = new long[count * count];
+    view.setCluster(k);
+    for (int i = 0; i < count; i++) {
+      GraphSearch.distancesFrom(view, view.localOf(this.nodeCell[nodes[i]]), ctx);
+      for (int j = 0; j < count; j++) {
+        int local = view.localOf(this.nodeCell[nodes[j]]);
+        dist[i * count + j] = ctx.isReached(local) ? ctx.getDistance(local) : UNREACHABLE;
+      }
+    }
+    this.clusterDist[k] = dist;
+  }
+
+  /**********
+   * @return number of vertex ids, free ones included
+   **/
+  public int getNumNodes() {
+    return this.capacity;
+  }
+
+  public int getMaxDegree() {
+    return this.maxClusterNodes + 2;
+  }
+
+  /**********
+   * Writes the vertices of a vertex's cluster it can reach inside the
+   * cluster, and those across its entrances
+   * @param vertex id, an array with room for getMaxDegree() ids
+   * @return the number of neighbors written
+   **/
+  public int getNeighbors(int v, int[] out) {
+    int k = this.nodeCluster[v];
+    int[] nodes = this.clusterNodes[k];
+    long[] dist = this.clusterDist[k];
+    int row = this.nodeIndex[v] * nodes.length;
+    int n = 0;
+    for (int j = 0; j < nodes.length; j++) {
+      if (nodes[j] != v && dist[row + j] != UNREACHABLE) {
+        out[n++] = nodes[j];
+      }
+    }
+    for (int slot = 0; slot < 2; slot++) {
+      if (this.partner[2 * v + slot] >= 0) {
+        out[n++] = this.partner[2 * v + slot];
+      }
+    }
+    return n;
+  }
+
+  public long getEdgeCost(int u, int v) {
+    int k = this.nodeCluster[u];
+    if (k != this.nodeCluster[v]) {
+      return this.grid.getEdgeCost(this.nodeCell[u], this.nodeCell[v]);
+    }
+    return this.clusterDist[k][this.nodeIndex[u] * this.clusterNodes[k].length + this.nodeIndex[v]];
+  }
+
+  /**********
+   * @return the cost of the longest path inside a cluster could have
+   **/
+  public long getMaxEdgeCost() {
+    return this.grid.getMaxEdgeCost() * this.clusterSize * this.clusterSize;
+  }
+
+  public long getCostLowerBound(int u, int v) {
+    return this.grid.getCostLowerBound(this.nodeCell[u], this.nodeCell[v]);
+  }
+
+  /**********
+   * @return the cell of an abstract vertex
+   **/
+  public int getCell(int v) {
+    return this.nodeCell[v];
+  }
+
+  /**********
+   * Prepares a search between two open cells: searches their clusters
+   * to join them to the abstract graph
+   * @param start and end cell ids
+   * @return the abstract graph with the two cells added
+   **/
+  public Query query(int startCell, int endCell) {
+    return new Query(startCell, endCell);
+  }
+
+  /**********
+   * One cluster of the grid as a graph of its own, with local ids
+   * (row - row0) * clusterSize + (col - col0), so its searches need
+   * contexts only as large as a cluster
+   **/
+  private class ClusterView implements SearchGraph {
+    private int row0;
+    private int col0;
+    private int rows;
+    private int cols;
+
+    /**********
+     * points this view at cluster k
+     **/
+    void setCluster(int k) {
+      this.row0 = (k / clustersPerSide) * clusterSize;
+      this.col0 = (k % clustersPerSide) * clusterSize;
+      this.rows = Math.min(clusterSize, size - this.row0);
+      this.cols = Math.min(clusterSize, size - this.col0);
+    }
+
+    /**********
+     * @return the local id of a cell of this cluster
+     **/
+    int localOf(int cell) {
+      int row = cell / size;
+      int col = cell - row * size;
+      return (row - this.row0) * clusterSize + (col - this.col0);
+    }
+
+    /**********
+     * @return the cell of a local id
+     **/
+    int cellOf(int local) {
+      int row = local / clusterSize;
+      int col = local - row * clusterSize;
+      return (this.row0 + row) * size + this.col0 + col;
+    }
+
+    public int getNumNodes() {
+      return clusterSize * clusterSize;
+    }
+
+    public int getMaxDegree() {
+      return 4;
+    }
+
+    public int getNeighbors(int v, int[] out) {
+      int row = v / clusterSize;
+      int col = v - row * clusterSize;
+      int cell = cellOf(v);
+      int n = 0;
+      if (row > 0 && grid.isOpen(cell - size)) {
+        out[n++] = v - clusterSize;
+      }
+      if (row < this.rows - 1 && grid.isOpen(cell + size)) {
+        out[n++] = v + clusterSize;
+      }
+      if (col > 0 && grid.isOpen(cell - 1)) {
+        out[n++] = v - 1;
+      }
+      if (col < this.cols - 1 && grid.isOpen(cell + 1)) {
+        out[n++] = v + 1;
+      }
+      return n;
+    }
+
+    public long getEdgeCost(int u, int v) {
+      return grid.getEdgeCost(cellOf(u), cellOf(v));
+    }
+
+    public long getMaxEdgeCost() {
+      return grid.getMaxEdgeCost();
+    }
+
+    public long getCostLowerBound(int u, int v) {
+      return grid.getCostLowerBound(cellOf(u), cellOf(v));
+    }
+  }
+
+  /**********
+   * The abstract graph with a start and an end cell added as vertices
+   * getNumNodes() - 2 and getNumNodes() - 1, each joined to the
+   * vertices of its cluster it reaches inside the cluster, and to
+   * each other if they share a cluster
+   **/
+  public class Query implements SearchGraph {
+    private int startCell;
+    private int endCell;
+    private int start;
+    private int end;
+    // in-cluster distances from the start cell to the vertices of its
+    // cluster, and from the end cell to those of its cluster
+    private long[] startDist;
+    private long[] endDist;
+    // in-cluster distance between the two cells if they share one
+    private long direct = UNREACHABLE;
+    private ClusterView view = new ClusterView();
+    private SearchContext ctx = new SearchContext(clusterSize * clusterSize);
+
+    private Query(int startCell, int endCell) {
+      this.startCell = startCell;
+      this.endCell = endCell;
+      this.start = capacity;
+      this.end = capacity + 1;
+      this.startDist = distancesInCluster(startCell);
+      this.endDist = distancesInCluster(endCell);
+      if (clusterOf(startCell) == clusterOf(endCell)) {
+        int local = this.view.localOf(endCell);
+        GraphSearch.distancesFrom(this.view, this.view.localOf(startCell), this.ctx);
+        if (this.ctx.isReached(local)) {
+          this.direct = this.ctx.getDistance(local);
+        }
+      }
+    }
+
+    /**********
+     * helper function for Query
+     * @return the in-cluster distances from a cell to the vertices of
+     *         its cluster
+     **/
+    private long[] distancesInCluster(int cell) {
+      int k = clusterOf(cell);
+      int[] nodes = clusterNodes[k];
+      long[] dist = new long[nodes.length];
+      this.view.setCluster(k);
+      GraphSearch.distancesFrom(this.view, this.view.localOf(cell), this.ctx);
+      for (int i = 0; i < nodes.length; i++) {
+        int local = this.view.localOf(nodeCell[nodes[i]]);
+        dist[i] = this.ctx.isReached(local) ? this.ctx.getDistance(local) : UNREACHABLE;
+      }
+      return dist;
+    }
+
+    /**********
+     * @return the vertex of the start cell
+     **/
+    public int getStart() {
+      return this.start;
+    }
+
+    /**********
+     * @return the vertex of the end cell
+     **/
+    public int getEnd() {
+      return this.end;
+    }
+
+    public int getNumNodes() {
+      return capacity + 2;
+    }
+
+    public int getMaxDegree() {
+      return maxClusterNodes + 4;
+    }
+
+    public int getNeighbors(int v, int[] out) {
+      if (v >= capacity) {
+        boolean isStart = (v == this.start);
+        int[] nodes = clusterNodes[clusterOf(isStart ? this.startCell : this.endCell)];
+        long[] dist = isStart ? this.startDist : this.endDist;
+        int n = 0;
+        for (int i = 0; i < nodes.length; i++) {
+          if (dist[i] != UNREACHABLE) {
+            out[n++] = nodes[i];
+          }
+        }
+        if (this.direct != UNREACHABLE) {
+          out[n++] = isStart ? this.end : this.start;
+        }
+        return n;
+      }
+      int n = HierarchicalGraph.this.getNeighbors(v, out);
+      if (addedCost(this.start, v) != UNREACHABLE) {
+        out[n++] = this.start;
+      }
+      if (addedCost(this.end, v) != UNREACHABLE) {
+        out[n++] = this.end;
+      }
+      return n;
+    }
+
+    /**********
+     * helper function for getNeighbors and getEdgeCost
+     * @return the cost between an added vertex and another vertex,
+     *         UNREACHABLE if they are not joined
+     **/
+    private long addedCost(int added, int v) {
+      if (v >= capacity) {
+        return (v == added) ? UNREACHABLE : this.direct;
+      }
+      int cell = (added == this.start) ? this.startCell : this.endCell;
+      if (nodeCluster[v] != clusterOf(cell)) {
+        return UNREACHABLE;
+      }
+      return (added == this.start) ? this.startDist[nodeIndex[v]] : this.endDist[nodeIndex[v]];
+    }
+
+    public long getEdgeCost(int u, int v) {
+      if (u >= capacity) {
+        return addedCost(u, v);
+      }
+      if (v >= capacity) {
+        return addedCost(v, u);
+      }
+      return HierarchicalGraph.this.getEdgeCost(u, v);
+    }
+
+    public long getMaxEdgeCost() {
+      return HierarchicalGraph.this.getMaxEdgeCost();
+    }
+
+    public long getCostLowerBound(int u, int v) {
+      return grid.getCostLowerBound(cellOf(u), cellOf(v));
+    }
+
+    /**********
+     * @return the cell of a vertex of this query
+     **/
+    public int cellOf(int v) {
+      if (v == this.start) {
+        return this.startCell;
+      }
+      return (v == this.end) ? this.endCell : nodeCell[v];
+    }
+
+    /**********
+     * Expands a path of this query's vertices into the cells it walks,
+     * searching inside one cluster for every edge within a cluster
+     * @param vertex ids along a path
+     * @return cell ids along the same path, empty if path is
+     **/
+    public int[] expand(int[] path) {
+      if (path.length == 0) {
+        return path;
+      }
+      int[] out = new int[16];
+      int n = 0;
+      out[n++] = cellOf(path[0]);
+      for (int i = 0; i + 1 < path.length; i++) {
+        int a = cellOf(path[i]);
+        int b = cellOf(path[i + 1]);
+        int k = clusterOf(a);
+        int[] steps;
+        if (k != clusterOf(b)) {
+          steps = new int[] {b};
+        } else {
+          this.view.setCluster(k);
+          int[] local = GraphSearch.aStar(this.view, this.view.localOf(a), this.view.localOf(b), this.ctx);
+          steps = new int[local.length - 1];
+          for (int j = 1; j < local.length; j++) {
+            steps[j - 1] = this.view.cellOf(local[j]);
+          }
+        }
+        if (n + steps.length > out.length) {
+          out = Arrays.copyOf(out, Math.max(n + steps.length, 2 * out.length));
+        }
+        System.arraycopy(steps, 0, out, n, steps.length);
+        n += steps.length;
+      }
+      return Arrays.copyOf(out, n);
+    }
+  }
+}
@@ -0,0 +1,227 @@
+import java.util.Arrays;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Lifelong Planning A* (LPA*) between two fixed cells of a grid whose
+ * weights change. Every cell keeps g, the distance the last search
+ * settled it at, and rhs, the best distance its neighbors offer now.
+ * Cells where the two differ are inconsistent and wait in a heap
+ * keyed by [min(g, rhs) + h, min(g, rhs)]. After an edit only the
+ * changed cell and its neighbors are re-examined, and the next search
+ * repairs just the inconsistencies spreading from them that can
+ * affect the end cell, instead of starting over.
+ *
+ * Call cellChanged after every change of a cell's weight, then search
+ * again. h is the grid's cost lower bound; if an edit lowers the
+ * smallest weight below the one the bound was taken from, the next
+ * search starts over. One search runs at a time.
+ *********************/
+
+public class IncrementalSearch {
+
+  private static final long INFINITY = Long.MAX_VALUE / 4;
+
+  private GridGraph grid;
+  private int start;
+  private int end;
+  private long[] g;
+  private long[] rhs;
+  private IndexedMinHeap open;
+  // smallest edge cost the heap keys were computed with
+  private long minEdgeCost;
+  // cells taken from the heap by the last search
+  private int expanded;
+  // neighbor buffers: nbrs for updateCell, around for its callers
+  private int[] nbrs = new int[4];
+  private int[] around = new int[4];
+
+  /**********
+   * prepares a search between two cells; nothing is searched until
+   * search is called
+   * @param the grid, start and end cell ids
+   **/
+  public IncrementalSearch(GridGraph grid, int start, int end) {
+    this.grid = grid;
+    this.start = start;
+    this.end = end;
+    int n = grid.getNumCells();
+    this.g = new long[n];
+    this.rhs = new long[n];
+    this.open = new IndexedMinHeap(n);
+    reset();
+  }
+
+  /**********
+   * helper function for the constructor and search
+   * forgets every distance and starts over from the start cell
+   **/
+  private void reset() {
+    Arrays.fill(this.g, INFINITY);
+    Arrays.fill(this.rhs, INFINITY);
+    this.open.clear();
+    this.minEdgeCost = this.grid.getMinEdgeCost();
+    updateCell(this.start);
+  }
+
+  /**********
+   * @return the start cell
+   **/
+  public int getStart() {
+    return this.start;
+  }
+
+  /**********
+   * @return the end cell
+   **/
+  public int getEnd() {
+    return this.end;
+  }
+
+  /**********
+   * @return the number of cells the last search took from the heap
+   **/
+  public int getExpanded() {
+    return this.expanded;
+  }
+
+  /**********
+   * Records that the weight of a cell changed, which changes the cost
+   * of every edge it has
+   * @param the cell id
+   **/
+  public void cellChanged(int cell) {
+    updateCell(cell);
+    int count = this.grid.getNeighbors(cell, this.around);
+    for (int i = 0; i < count; i++) {
+      updateCell(this.around[i]);
+    }
+  }
+
+  /**********
+   * Finds a shortest path, repairing the one before if there was one
+   * @return cell ids along the found path, empty if there is none
+   **/
+  public int[] search() {
+    if (this.grid.getMinEdgeCost() < this.minEdgeCost) {
+      reset();
+    }
+    this.expanded = 0;
+    while (!this.open.isEmpty() && (precedesEnd(this.open.peek()) ||
+                                   this.rhs[this.end] != this.g[this.end])) {
+      int u = this.open.poll();
+      this.expanded++;
+      int count = this.grid.getNeighbors(u, this.around);
+      if (this.g[u] > this.rhs[u]) {
+        this.g[u] = this.rhs[u];
+      } else {
+        this.g[u] = INFINITY;
+        updateCell(u);
+      }
+      for (int i = 0; i < count; i++) {
+        updateCell(this.around[i]);
+      }
+    }
+    return path();
+  }
+
+  /**********
+   * @return the cost of the path found by the last search, or
+   *         Long.MAX_VALUE if there is none
+   **/
+  public long getDistance() {
+    return (this.g[this.end] >= INFINITY) ? Long.MAX_VALUE : this.g[this.end];
+  }
+
+  /**********
+   * helper function for search
+   * @return whether a queued cell orders before the end cell's key
+   **/
+  private boolean precedesEnd(int u) {
+    long endBest = Math.min(this.g[this.end], this.rhs[this.end]);
+    long endKey = endBest + heuristic(this.end);
+    long key = this.open.getKey(u);
+    return key < endKey || (key == endKey && this.open.getTie(u) < endBest);
+  }
+
+  /**********
+   * helper function for the search
+   * recomputes rhs of a cell from its neighbors and queues the cell
+   * if it became inconsistent
+   * @param the cell id
+   **/
+  private void updateCell(int u) {
+    if (!this.grid.isOpen(u)) {
+      this.rhs[u] = INFINITY;
+    } else if (u == this.start) {
+      this.rhs[u] = 0;
+    } else {
+      long best = INFINITY;
+      int count = this.grid.getNeighbors(u, this.nbrs);
+      for (int i = 0; i < count; i++) {
+        int s = this.nbrs[i];
+        if (this.g[s] < INFINITY) {
+          best = Math.min(best, this.g[s] + this.grid.getEdgeCost(s, u));
+        }
+      }
+      this.rhs[u] = best;
+    }
+    if (this.g[u] == this.rhs[u]) {
+      this.open.remove(u);
+      return;
+    }
+    long best = Math.min(this.g[u], this.rhs[u]);
+    long key = best + heuristic(u);
+    if (this.open.contains(u)) {
+      this.open.update(u, key, best);
+    } else {
+      this.open.insert(u, key, best);
+    }
+  }
+
+  /**********
+   * @return a lower bound on the cost from a cell to the end, taken
+   *         with the smallest edge cost the heap keys use
+   **/
+  private long heuristic(int u) {
+    return this.minEdgeCost * this.grid.manhattanDistance(u, this.end);
+  }
+
+  /**********
+   * helper function for search
+   * walks back from the end to the neighbor each cell got its
+   * distance from
+   * @return cell ids along the path, empty if the end is not reached
+   **/
+  private int[] path() {
+    if (this.g[this.end] >= INFINITY || !this.grid.isOpen(this.end)) {
+      return new int[0];
+    }
+    int[] reversed = new int[16];
+    int n = 0;
+    int u = this.end;
+    reversed[n++] = u;
+    while (u != this.start) {
+      int count = this.grid.getNeighbors(u, this.nbrs);
+      int next = -1;
+      long best = INFINITY;
+      for (int i = 0; i < count; i++) {
+        int s = this.nbrs[i];
+        if (this.g[s] < INFINITY && this.g[s] + this.grid.getEdgeCost(s, u) < best) {
+          best = this.g[s] + this.grid.getEdgeCost(s, u);
+          next = s;
+        }
+      }
+      u = next;
+      if (n == reversed.length) {
+        reversed = Arrays.copyOf(reversed, 2 * n);
+      }
+      reversed[n++] = u;
+    }
+    int[] out = new int[n];
+    for (int i = 0; i < n; i++) {
+      out[i] = reversed[n - 1 - i];
+    }
+    return out;
+  }
+}
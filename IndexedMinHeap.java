@@ -0,0 +1,249 @@
+import java.util.NoSuchElementException;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Binary min-heap over int ids 0 .. capacity - 1 with primitive long
+ * keys. Each id sits in the heap at most once, and its position is
+ * tracked so contains() is O(1) and a key can be lowered in place
+ * with decreaseKey() in O(log n), as Dijkstra's algorithm needs.
+ *
+ * Every id may also carry a secondary tie key, which orders ids whose
+ * keys are equal; A* uses it to prefer deeper nodes, and LPA* keeps
+ * the second half of its two-part keys there. Ids can also be removed
+ * or have their keys raised, which incremental searches need.
+ *********************/
+
+public class IndexedMinHeap {
+
+  // ids in heap order
+  private int[] heap;
+  // position of every id in heap, -1 when it is not in the heap
+  private int[] pos;
+  // current key of every id in the heap
+  private long[] keys;
+  // secondary key of every id in the heap, compared on equal keys
+  private long[] ties;
+  private int size;
+
+  /**********
+   * creates an empty heap for ids 0 .. capacity - 1
+   **/
+  public IndexedMinHeap(int capacity) {
+    this.heap = new int[capacity];
+    this.pos = new int[capacity];
+    this.keys = new long[capacity];
+    this.ties = new long[capacity];
+    java.util.Arrays.fill(this.pos, -1);
+  }
+
+  /**********
+   * @return whether the heap holds no ids
+   **/
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**********
+   * @return number of ids in the heap
+   **/
+  public int size() {
+    return this.size;
+  }
+
+  /**********
+   * @return whether id is in the heap
+   **/
+  public boolean contains(int id) {
+    return this.pos[id] != -1;
+  }
+
+  /**********
+   * @return the current key of an id in the heap
+   **/
+  public long getKey(int id) {
+    return this.keys[id];
+  }
+
+  /**********
+   * @return the current tie key of an id in the heap
+   **/
+  public long getTie(int id) {
+    return this.ties[id];
+  }
+
+  /**********
+   * Adds an id that is not yet in the heap
+   * @param the id, its key
+   **/
+  public void insert(int id, long key) {
+    insert(id, key, 0);
+  }
+
+  /**********
+   * Adds an id that is not yet in the heap
+   * @param the id, its key, its tie key
+   **/
+  public void insert(int id, long key, long tie) {
+    if (this.pos[id] != -1) {
+      throw new IllegalArgumentException("Id " + id + " is already in the heap");
+    }
+    this.keys[id] = key;
+    this.ties[id] = tie;
+    this.heap[this.size] = id;
+    this.pos[id] = this.size;
+    this.size++;
+    siftUp(this.size - 1);
+  }
+
+  /**********
+   * Lowers the key of an id already in the heap
+   * @param the id, its new key, which must not be larger than the old one
+   **/
+  public void decreaseKey(int id, long key) {
+    decreaseKey(id, key, 0);
+  }
+
+  /**********
+   * Lowers the key of an id already in the heap
+   * @param the id, its new key and tie key, which together must not
+   *        order after the old ones
+   **/
+  public void decreaseKey(int id, long key, long tie) {
+    if (key > this.keys[id] || (key == this.keys[id] && tie > this.ties[id])) {
+      throw new IllegalArgumentException("New key is larger than the current key");
+    }
+    this.keys[id] = key;
+    this.ties[id] = tie;
+    siftUp(this.pos[id]);
+  }
+
+  /**********
+   * Changes the key of an id already in the heap, up or down
+   * @param the id, its new key and tie key
+   **/
+  public void update(int id, long key, long tie) {
+    this.keys[id] = key;
+    this.ties[id] = tie;
+    int i = this.pos[id];
+    siftUp(i);
+    if (this.pos[id] == i) {
+      siftDown(i);
+    }
+  }
+
+  /**********
+   * Removes an id from the heap if it is there
+   * @param the id
+   **/
+  public void remove(int id) {
+    int i = this.pos[id];
+    if (i == -1) {
+      return;
+    }
+    this.size--;
+    this.pos[id] = -1;
+    if (i == this.size) {
+      return;
+    }
+    int last = this.heap[this.size];
+    this.heap[i] = last;
+    this.pos[last] = i;
+    siftUp(i);
+    if (this.pos[last] == i) {
+      siftDown(i);
+    }
+  }
+
+  /**********
+   * @return the id with the smallest key, without removing it
+   **/
+  public int peek() {
+    if (this.size == 0) {
+      throw new NoSuchElementException("Heap is empty");
+    }
+    return this.heap[0];
+  }
+
+  /**********
+   * Removes the id with the smallest key
+   * @return the removed id
+   **/
+  public int poll() {
+    int top = peek();
+    this.size--;
+    this.pos[top] = -1;
+    if (this.size > 0) {
+      int last = this.heap[this.size];
+      this.heap[0] = last;
+      this.pos[last] = 0;
+      siftDown(0);
+    }
+    return top;
+  }
+
+  /**********
+   * Removes every id, in time proportional to the heap's size
+   **/
+  public void clear() {
+    for (int i = 0; i < this.size; i++) {
+      this.pos[this.heap[i]] = -1;
+    }
+    this.size = 0;
+  }
+
+  /**********
+   * helper function for insert, decreaseKey, update and remove
+   * moves the entry at index i up until its parent is not larger
+   **/
+  private void siftUp(int i) {
+    int id = this.heap[i];
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      int p = this.heap[parent];
+      if (!less(id, p)) {
+        break;
+      }
+      this.heap[i] = p;
+      this.pos[p] = i;
+      i = parent;
+    }
+    this.heap[i] = id;
+    this.pos[id] = i;
+  }
+
+  /**********
+   * helper function for poll, update and remove
+   * moves the entry at index i down until no child is smaller
+   **/
+  private void siftDown(int i) {
+    int id = this.heap[i];
+    int half = this.size >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      int c = this.heap[child];
+      int right = child + 1;
+      if (right < this.size && less(this.heap[right], c)) {
+        child = right;
+        c = this.heap[child];
+      }
+      if (!less(c, id)) {
+        break;
+      }
+      this.heap[i] = c;
+      this.pos[c] = i;
+      i = child;
+    }
+    this.heap[i] = id;
+    this.pos[id] = i;
+  }
+
+  /**********
+   * @return whether id a orders strictly before id b
+   **/
+  private boolean less(int a, int b) {
+    long ka = this.keys[a];
+    long kb = this.keys[b];
+    return ka < kb || (ka == kb && this.ties[a] < this.ties[b]);
+  }
+}
@@ -0,0 +1,333 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * This class implements BasicGraphADT for vertices numbered with
+ * non-negative ints, storing the graph in compressed sparse row form:
+ * the neighbors of vertex v are targets[offsets[v] .. offsets[v + 1]),
+ * sorted and without repeats, so hasEdge is a binary search and the
+ * edge count is kept as a field.
+ *
+ * Edges added are collected in growable int arrays and merged into the
+ * rows on the next query, so a graph is cheapest to use when it is
+ * built first and queried after. The generic methods hand out Vertex
+ * views made on demand; the primitive methods allocate nothing.
+ *********************/
+
+public class IntGraph implements BasicGraphADT<Integer> {
+
+  // whether each id is a vertex, and the number that are
+  private boolean[] present = new boolean[16];
+  private int numVertices;
+  // one more than the largest vertex id
+  private int idBound;
+  // compressed rows of the edges merged so far
+  private int[] offsets = new int[1];
+  private int[] targets = new int[0];
+  private int numEdges;
+  // edges added since the last merge, one entry per endpoint pair
+  private int[] pendingFrom = new int[16];
+  private int[] pendingTo = new int[16];
+  private int pendingSize;
+  // Vertex views handed out by the generic methods
+  private HashMap<Integer, Vertex<Integer>> views = new HashMap<Integer, Vertex<Integer>>();
+
+  /*******************
+   * Add a vertex with the given id
+   * @return Whether the vertex was successfully added
+   ********************/
+  public boolean addVertex(int v) {
+    if (v < 0) {
+      throw new IllegalArgumentException("Vertex ids must be non-negative, got " + v);
+    }
+    if (v >= this.present.length) {
+      this.present = Arrays.copyOf(this.present, Math.max(v + 1, 2 * this.present.length));
+    }
+    if (this.present[v]) {
+      return false;
+    }
+    this.present[v] = true;
+    this.numVertices++;
+    this.idBound = Math.max(this.idBound, v + 1);
+    return true;
+  }
+
+  /******************
+   * Add an edge between two vertices
+   * @return Whether the edge was successfully added
+   *         return true also if the edge already exists
+   ********************/
+  public boolean addEdge(int beg, int end) {
+    if (!hasVertex(beg) || !hasVertex(end)) {
+      return false;
+    }
+    if (this.pendingSize == this.pendingFrom.length) {
+      this.pendingFrom = Arrays.copyOf(this.pendingFrom, 2 * this.pendingSize);
+      this.pendingTo = Arrays.copyOf(this.pendingTo, 2 * this.pendingSize);
+    }
+    this.pendingFrom[this.pendingSize] = beg;
+    this.pendingTo[this.pendingSize] = end;
+    this.pendingSize++;
+    return true;
+  }
+
+  /******************
+   * Tests whether a vertex exists in the graph
+   * @return Whether the vertex exists
+   ********************/
+  public boolean hasVertex(int v) {
+    return v >= 0 && v < this.present.length && this.present[v];
+  }
+
+  /******************
+   * Tests whether an edge exists in the graph, by binary search
+   * in the row of beg
+   * @return Whether the edge exists
+   ********************/
+  public boolean hasEdge(int beg, int end) {
+    if (!hasVertex(beg) || !hasVertex(end)) {
+      return false;
+    }
+    compact();
+    return Arrays.binarySearch(this.targets, this.offsets[beg], this.offsets[beg + 1], end) >= 0;
+  }
+
+  /******************
+   * @return the number of neighbors of v
+   ********************/
+  public int getDegree(int v) {
+    compact();
+    if (!hasVertex(v)) {
+      return 0;
+    }
+    return this.offsets[v + 1] - this.offsets[v];
+  }
+
+  /******************
+   * @return the i-th smallest neighbor id of v
+   ********************/
+  public int getNeighbor(int v, int i) {
+    compact();
+    return this.targets[this.offsets[v] + i];
+  }
+
+  /******************
+   * Copies the neighbors of v into out, in increasing order
+   * @return number of neighbors copied
+   ********************/
+  public int getNeighbors(int v, int[] out) {
+    int degree = getDegree(v);
+    if (degree > 0) {
+      System.arraycopy(this.targets, this.offsets[v], out, 0, degree);
+    }
+    return degree;
+  }
+
+  /******************
+   * helper function for the queries
+   * merges the pending edges into the rows: counts every row's new
+   * length, fills the rows, then sorts each one and drops repeats
+   ********************/
+  private void compact() {
+    if (this.pendingSize == 0 && this.offsets.length == this.idBound + 1) {
+      return;
+    }
+    int n = this.idBound;
+    int[] counts = new int[n + 1];
+    int oldRows = this.offsets.length - 1;
+    for (int v = 0; v < oldRows; v++) {
+      counts[v + 1] = this.offsets[v + 1] - this.offsets[v];
+    }
+    for (int i = 0; i < this.pendingSize; i++) {
+      counts[this.pendingFrom[i] + 1]++;
+      if (this.pendingFrom[i] != this.pendingTo[i]) {
+        counts[this.pendingTo[i] + 1]++;
+      }
+    }
+    for (int v = 0; v < n; v++) {
+      counts[v + 1] += counts[v];
+    }
+    int[] next = Arrays.copyOf(counts, n);
+    int[] merged = new int[counts[n]];
+    for (int v = 0; v < oldRows; v++) {
+      for (int j = this.offsets[v]; j < this.offsets[v + 1]; j++) {
+        merged[next[v]++] = this.targets[j];
+      }
+    }
+    for (int i = 0; i < this.pendingSize; i++) {
+      int a = this.pendingFrom[i];
+      int b = this.pendingTo[i];
+      merged[next[a]++] = b;
+      if (a != b) {
+        merged[next[b]++] = a;
+      }
+    }
+    // sort every row and squeeze out repeated neighbors
+    int[] offsets = new int[n + 1];
+    int size = 0;
+    long ends = 0;
+    for (int v = 0; v < n; v++) {
+      Arrays.sort(merged, counts[v], counts[v + 1]);
+      offsets[v] = size;
+      for (int j = counts[v]; j < counts[v + 1]; j++) {
+        if (j == counts[v] || merged[j] != merged[j - 1]) {
+          merged[size++] = merged[j];
+          // count every edge once, at its smaller end
+          if (merged[j] >= v) {
+            ends++;
+          }
+        }
+      }
+    }
+    offsets[n] = size;
+    this.offsets = offsets;
+    this.targets = Arrays.copyOf(merged, size);
+    this.numEdges = (int) ends;
+    this.pendingSize = 0;
+  }
+
+  /*******************
+   * Add a vertex to this graph with given label
+   * @return Whether the vertex was successfully added
+   ********************/
+  public boolean addVertex(Integer vert) {
+    return addVertex(vert.intValue());
+  }
+
+  /******************
+   * Add an edge to this graph between the two given labels
+   * @return Whether the edge was successfully added
+   *         return true also if the edge already exists
+   ********************/
+  public boolean addEdge(Integer beg, Integer end) {
+    return addEdge(beg.intValue(), end.intValue());
+  }
+
+  /******************
+   * Tests whether a vertex exists in the graph
+   * @return Whether the vertex exists
+   ********************/
+  public boolean hasVertex(Integer vert) {
+    return hasVertex(vert.intValue());
+  }
+
+  /******************
+   * Tests whether an edge exists in the graph
+   * @return Whether the edge exists
+   ********************/
+  public boolean hasEdge(Integer beg, Integer end) {
+    return hasEdge(beg.intValue(), end.intValue());
+  }
+
+  /*****************
+   * Gets a list containing all the neighbors of a given vertex
+   * @return the neighbor list as a java List
+   *********************/
+  public List<Vertex<Integer>> getNeighbors(Integer vert) {
+    return getVertex(vert).getNeighbors();
+  }
+
+  /****************************
+   * Gets the vertex object associated with the given label. The same
+   * view is returned every time, so its distance and path persist
+   * @return the vertex, or null if there is none
+   ************************/
+  public Vertex<Integer> getVertex(Integer lab) {
+    int v = lab.intValue();
+    if (!hasVertex(v)) {
+      return null;
+    }
+    Vertex<Integer> view = this.views.get(v);
+    if (view == null) {
+      view = new VertexView<Integer>(lab, v, this, this::viewOf);
+      this.views.put(v, view);
+    }
+    return view;
+  }
+
+  /****************************
+   * helper function for the vertex views
+   * @return the view of vertex v
+   ************************/
+  private Vertex<Integer> viewOf(int v) {
+    return getVertex(v);
+  }
+
+  /*****************
+   * Tests if the graph is empty
+   * @return Whether the graph is empty
+   *******************/
+  public boolean isEmpty() {
+    return this.numVertices == 0;
+  }
+
+  /********************
+   * Gets the number of vertices
+   * @return The number of vertices
+   *******************/
+  public int getNumVertices() {
+    return this.numVertices;
+  }
+
+  /********************
+   * Gets the number of edges, each counted once
+   * @return The number of edges
+   *********************/
+  public int getNumEdges() {
+    compact();
+    return this.numEdges;
+  }
+
+  /**************
+   * Clear all edges and vertices from the graph
+   ********************/
+  public void clear() {
+    this.present = new boolean[16];
+    this.numVertices = 0;
+    this.idBound = 0;
+    this.offsets = new int[1];
+    this.targets = new int[0];
+    this.numEdges = 0;
+    this.pendingSize = 0;
+    this.views.clear();
+  }
+
+  /**************
+   * A Vertex whose neighbors are read from an IntGraph when asked for,
+   * so generic callers can walk the graph without it holding vertex
+   * objects. Adding a neighbor adds the edge to the graph
+   *************/
+  static class VertexView<T> extends Vertex<T> {
+    private int id;
+    private IntGraph graph;
+    // view of every vertex id, shared by the views of one graph
+    private IntFunction<Vertex<T>> views;
+
+    VertexView(T label, int id, IntGraph graph, IntFunction<Vertex<T>> views) {
+      super(label);
+      this.id = id;
+      this.graph = graph;
+      this.views = views;
+    }
+
+    public List<Vertex<T>> getNeighbors() {
+      int degree = this.graph.getDegree(this.id);
+      List<Vertex<T>> nbrs = new ArrayList<Vertex<T>>(degree);
+      for (int i = 0; i < degree; i++) {
+        nbrs.add(this.views.apply(this.graph.getNeighbor(this.id, i)));
+      }
+      return nbrs;
+    }
+
+    public void addNeighbor(Vertex<T> n) {
+      if (n instanceof VertexView && ((VertexView<T>) n).graph == this.graph) {
+        this.graph.addEdge(this.id, ((VertexView<T>) n).id);
+      }
+    }
+  }
+}
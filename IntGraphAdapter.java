@@ -0,0 +1,202 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Adapts an IntGraph to vertices with labels of any type, so code
+ * written against BasicGraphADT can use the compact graph unchanged.
+ * Every label is numbered in the order it was added; the edges live
+ * in the IntGraph.
+ *********************/
+
+public class IntGraphAdapter<T> implements BasicGraphADT<T> {
+
+  private IntGraph graph = new IntGraph();
+  // label -> vertex id, and id -> label
+  private HashMap<T, Integer> ids = new HashMap<T, Integer>();
+  private ArrayList<T> labels = new ArrayList<T>();
+  // Vertex views handed out, by id
+  private HashMap<Integer, Vertex<T>> views = new HashMap<Integer, Vertex<T>>();
+
+  /*******************
+   * @return the graph of vertex ids behind this adapter
+   ********************/
+  public IntGraph getIntGraph() {
+    return this.graph;
+  }
+
+  /*******************
+   * @return the id of a label, or -1 if it is not a vertex
+   ********************/
+  public int getId(T vert) {
+    Integer id = this.ids.get(vert);
+    return id == null ? -1 : id;
+  }
+
+  /*******************
+   * @return the label of a vertex id
+   ********************/
+  public T getLabel(int id) {
+    return this.labels.get(id);
+  }
+
+  /*******************
+   * Add a vertex to this graph with given label
+   * @return Whether the vertex was successfully added
+   ********************/
+  public boolean addVertex(T vert) {
+    if (this.ids.containsKey(vert)) {
+      return false;
+    }
+    int id = this.labels.size();
+    this.ids.put(vert, id);
+    this.labels.add(vert);
+    return this.graph.addVertex(id);
+  }
+
+  /******************
+   * Add an edge to this graph between the two given labels
+   * @return Whether the edge was successfully added
+   *         return true also if the edge already exists
+   ********************/
+  public boolean addEdge(T beg, T end) {
+    int a = getId(beg);
+    int b = getId(end);
+    if (a < 0 || b < 0) {
+      return false;
+    }
+    return this.graph.addEdge(a, b);
+  }
+
+  /******************
+   * Tests whether a vertex exists in the graph
+   * @return Whether the vertex exists
+   ********************/
+  public boolean hasVertex(T vert) {
+    return this.ids.containsKey(vert);
+  }
+
+  /******************
+   * Tests whether an edge exists in the graph
+   * @return Whether the edge exists
+   ********************/
+  public boolean hasEdge(T beg, T end) {
+    int a = getId(beg);
+    int b = getId(end);
+    return a >= 0 && b >= 0 && this.graph.hasEdge(a, b);
+  }
+
+  /*****************
+   * Gets a list containing all the neighbors of a given vertex
+   * @return the neighbor list as a java List
+   *********************/
+  public List<Vertex<T>> getNeighbors(T vert) {
+    Vertex<T> v = getVertex(vert);
+    if (v == null) {
+      throw new NoSuchElementException("Vertex not found!");
+    }
+    return v.getNeighbors();
+  }
+
+  /****************************
+   * Gets the vertex object associated with the given label. The same
+   * view is returned every time, so its distance and path persist
+   * @return the vertex, or null if there is none
+   ************************/
+  public Vertex<T> getVertex(T lab) {
+    int id = getId(lab);
+    return id < 0 ? null : viewOf(id);
+  }
+
+  /****************************
+   * helper function for getVertex and the vertex views
+   * @return the view of vertex id
+   ************************/
+  private Vertex<T> viewOf(int id) {
+    Vertex<T> view = this.views.get(id);
+    if (view == null) {
+      view = new IntGraph.VertexView<T>(this.labels.get(id), id, this.graph, this::viewOf);
+      this.views.put(id, view);
+    }
+    return view;
+  }
+
+  /*****************
+   * Tests if the graph is empty
+   * @return Whether the graph is empty
+   *******************/
+  public boolean isEmpty() {
+    return this.graph.isEmpty();
+  }
+
+  /********************
+   * Gets the number of vertices
+   * @return The number of vertices
+   *******************/
+  public int getNumVertices() {
+    return this.graph.getNumVertices();
+  }
+
+  /********************
+   * Gets the number of edges
+   * @return The number of edges
+   *********************/
+  public int getNumEdges() {
+    return this.graph.getNumEdges();
+  }
+
+  /**************
+   * Clear all edges and vertices from the graph
+   ********************/
+  public void clear() {
+    this.graph.clear();
+    this.ids.clear();
+    this.labels.clear();
+    this.views.clear();
+  }
+
+  /**************
+   * Lists every vertex with its neighbors, in the same form as
+   * BasicGraph
+   *************/
+  public String toString() {
+    StringBuilder s = new StringBuilder();
+    for (int id = 0; id < this.labels.size(); id++) {
+      s.append('\n').append(this.labels.get(id)).append("  >>> ");
+      int degree = this.graph.getDegree(id);
+      for (int i = 0; i < degree; i++) {
+        s.append(' ').append(this.labels.get(this.graph.getNeighbor(id, i)));
+      }
+    }
+    return s.toString();
+  }
+
+  /**************
+   * test
+   *************/
+  public static void main(String[] args) {
+    IntGraphAdapter<String> gr = new IntGraphAdapter<String>();
+    gr.addVertex("foo");
+    gr.addVertex("bar");
+    gr.addVertex("baz");
+    gr.addVertex("ninja");
+    gr.addVertex("robot");
+    gr.addEdge("foo", "bar");
+    gr.addEdge("foo", "baz");
+    gr.addEdge("foo", "ninja");
+    gr.addEdge("ninja", "robot");
+    gr.getVertex("foo");
+    System.out.println(gr.toString());
+    System.out.println(gr.getNumVertices());
+    System.out.println(gr.getNumEdges());
+    System.out.println(gr.hasVertex("foo"));
+    System.out.println(gr.hasVertex("banana"));
+    System.out.println(gr.hasEdge("foo", "bar"));
+    System.out.println(gr.hasEdge("bar", "foo"));
+    System.out.println(gr.hasEdge("foo", "banana"));
+    gr.clear();
+  }
+}
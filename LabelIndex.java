@@ -0,0 +1,159 @@
+import java.util.HashMap;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Maps vertex labels of a maze file to cell ids (row * size + col)
+ * in constant time.
+ *
+ * Files written by Maze label their cells with consecutive base-26
+ * tags ("aa", "ab", ... "az", "ba", ...) in row-major order, so the
+ * cell id can be decoded straight from the letters with no map at
+ * all. Files whose labels do not follow that sequence fall back to
+ * a hash index built once when the file is read.
+ *********************/
+
+public class LabelIndex {
+
+  // number of cells in the maze
+  private int numCells;
+  // number of letters in every generated tag
+  private int width;
+  // label of every cell, only kept when the labels are not generated tags
+  private String[] labels;
+  // label -> cell id, only used when the labels are not generated tags
+  private HashMap<String, Integer> fallback;
+
+  /**********
+   * builds the index for a maze labelled with generated tags
+   * @param number of cells in the maze
+   **/
+  public LabelIndex(int numCells) {
+    this.numCells = numCells;
+    this.width = tagWidth(numCells);
+  }
+
+  /**********
+   * builds a hash index for a maze with arbitrary labels
+   * @param labels of every cell in row-major order
+   **/
+  public LabelIndex(String[] labels) {
+    this.numCells = labels.length;
+    this.width = tagWidth(this.numCells);
+    this.labels = labels;
+    this.fallback = new HashMap<String, Integer>(2 * this.numCells);
+    for (int id = 0; id < this.numCells; id++) {
+      // keep the first cell if a label repeats, as a scan would
+      this.fallback.putIfAbsent(labels[id], id);
+    }
+  }
+
+  /**********
+   * @return whether labels are decoded from generated tags, rather
+   *         than looked up in a hash index
+   **/
+  public boolean isDecoded() {
+    return this.fallback == null;
+  }
+
+  /**********
+   * @param a vertex label
+   * @return the cell id carrying that label, or -1 if there is none
+   **/
+  public int getCellId(String lab) {
+    if (this.fallback != null) {
+      Integer id = this.fallback.get(lab);
+      return id == null ? -1 : id;
+    }
+    return decodeTag(lab, this.width, this.numCells);
+  }
+
+  /**********
+   * @param a cell id
+   * @return the label of that cell
+   **/
+  public String getLabel(int id) {
+    if (this.labels != null) {
+      return this.labels[id];
+    }
+    return tagOf(id, this.width);
+  }
+
+  /**********
+   * appends the label of a cell to sb, without building a string for
+   * generated tags
+   * @param builder to append to, a cell id
+   **/
+  public void appendLabel(StringBuilder sb, int id) {
+    if (this.labels != null) {
+      sb.append(this.labels[id]);
+    } else {
+      appendTag(sb, id, this.width);
+    }
+  }
+
+  /**********
+   * @return the number of letters Maze uses in the tags of a maze
+   *         with the given number of cells
+   **/
+  public static int tagWidth(long numCells) {
+    if (numCells < 26) {
+      return 1;
+    } else if (numCells < 26 * 26) {
+      return 2;
+    }
+    // beyond 26^3 cells, tags get as many letters as they need
+    int width = 3;
+    for (long span = 26 * 26 * 26; span < numCells; span *= 26) {
+      width++;
+    }
+    return width;
+  }
+
+  /**********
+   * Decodes a generated tag back into its position in the sequence.
+   * @param a tag, the tag width, number of cells in the maze
+   * @return the cell id, or -1 if lab is not a tag of this maze
+   **/
+  public static int decodeTag(String lab, int width, int numCells) {
+    if (lab.length() != width) {
+      return -1;
+    }
+    long id = 0;
+    for (int i = 0; i < width; i++) {
+      int digit = lab.charAt(i) - 'a';
+      if (digit < 0 || digit >= 26) {
+        return -1;
+      }
+      id = id * 26 + digit;
+    }
+    return id < numCells ? (int) id : -1;
+  }
+
+  /**********
+   * @return the generated tag of the given cell
+   **/
+  public static String tagOf(long id, int width) {
+    char[] tag = new char[width];
+    for (int i = width - 1; i > 0; i--) {
+      tag[i] = (char) ('a' + id % 26);
+      id /= 26;
+    }
+    tag[0] = (char) ('a' + id);
+    return new String(tag);
+  }
+
+  /**********
+   * appends the generated tag of the given cell to sb; the same
+   * letters as tagOf, with nothing allocated
+   **/
+  public static void appendTag(StringBuilder sb, long id, int width) {
+    int start = sb.length();
+    sb.setLength(start + width);
+    for (int i = width - 1; i > 0; i--) {
+      sb.setCharAt(start + i, (char) ('a' + id % 26));
+      id /= 26;
+    }
+    sb.setCharAt(start, (char) ('a' + id));
+  }
+}
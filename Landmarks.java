@@ -0,0 +1,335 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Landmark lower bounds for A* (ALT). A few landmark cells are picked
+ * far apart, each the open cell farthest from those picked before,
+ * and the distance from every landmark to every cell is stored. By
+ * the triangle inequality |d(L, u) - d(L, t)| never overestimates
+ * d(u, t), and along a twisty maze it is far closer to it than any
+ * bound from coordinates, so A* settles far fewer cells.
+ *
+ * As a SearchGraph this is the grid with those bounds, so the solvers
+ * in GraphSearch use them unchanged. Landmarks are picked in the
+ * component with the most cells; cells in other components are
+ * bounded by the grid alone.
+ *
+ * Tables can be saved next to a maze, keyed like snapshots: step
+ * counts in maze.txt.alt and weighted distances in maze.txt.w.alt, so
+ * both can be kept at once. The file is big-endian:
+ *
+ *   0  magic "MAZL"           4  format version
+ *   8  key of the maze file  16  width of the maze
+ *  20  1 for weighted distances, 0 for steps
+ *  24  number of landmarks k
+ *  28  the k landmark cells
+ *      then for every cell its k distances, -1 if unreachable
+ *********************/
+
+public class Landmarks implements SearchGraph {
+
+  private static final byte[] MAGIC = {'M', 'A', 'Z', 'L'};
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 28;
+  public static final String SUFFIX = ".alt";
+  public static final String WEIGHTED_SUFFIX = ".w.alt";
+  public static final int DEFAULT_LANDMARKS = 8;
+  private static final int UNREACHABLE = -1;
+
+  private GridGraph grid;
+  private int[] landmarks;
+  // distance from landmark i to cell v at [v * k + i], so the bounds
+  // of one cell are read together
+  private IntBuffer dist;
+
+  private Landmarks(GridGraph grid, int[] landmarks, IntBuffer dist) {
+    this.grid = grid;
+    this.landmarks = landmarks;
+    this.dist = dist;
+  }
+
+  /**********
+   * Picks landmarks by farthest-point selection and searches from
+   * each of them, k + 1 one-to-all searches in all
+   * @param the grid, the number of landmarks
+   * @return the landmarks, fewer than k if the largest component has
+   *         fewer cells
+   **/
+  public static Landmarks compute(GridGraph grid, int k) {
+    int n = grid.getNumCells();
+    int first = largestComponentCell(grid);
+    if (first < 0 || k <= 0) {
+      return new Landmarks(grid, new int[0], IntBuffer.allocate(0));
+    }
+    long max = (long) n * k;
+    if (max > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many cells for " + k + " landmarks");
+    }
+    int[] table = new int[n * k];
+    // distance from every reached cell to its nearest landmark so far
+    long[] nearest = new long[n];
+    SearchContext ctx = new SearchContext(n);
+    GraphSearch.distancesFrom(grid, first, ctx);
+    int next = farthest(ctx, n, null);
+    int count = 0;
+    int[] picked = new int[k];
+    while (count < k && next >= 0) {
+      picked[count] = next;
+      GraphSearch.distancesFrom(grid, next, ctx);
+      for (int v = 0; v < n; v++) {
+        long d = ctx.isReached(v) ? ctx.getDistance(v) : -1;
+        if (d > Integer.MAX_VALUE) {
+          throw new IllegalArgumentException("Distances are too large for landmark tables");
+        }
+        table[v * k + count] = (int) d;
+        if (d >= 0 && (count == 0 || d < nearest[v])) {
+          nearest[v] = d;
+        }
+      }
+      count++;
+      next = farthest(ctx, n, nearest);
+      // a landmark already picked is at distance 0 from itself
+      if (next >= 0 && nearest[next] == 0) {
+        next = -1;
+      }
+    }
+    if (count < k) {
+      int[] fewer = new int[n * count];
+      for (int v = 0; v < n; v++) {
+        System.arraycopy(table, v * k, fewer, v * count, count);
+      }
+      table = fewer;
+    }
+    return new Landmarks(grid, Arrays.copyOf(picked, count), IntBuffer.wrap(table));
+  }
+
+  /**********
+   * helper function for compute
+   * @return a cell of the component with the most cells, -1 if there
+   *         are no open cells
+   **/
+  private static int largestComponentCell(GridGraph grid) {
+    int n = grid.getNumCells();
+    boolean[] seen = new boolean[n];
+    int[] Q = new int[n];
+    int[] nbrs = new int[4];
+    int best = -1;
+    int bestSize = 0;
+    for (int root = 0; root < n; root++) {
+      if (!grid.isOpen(root) || seen[root]) {
+        continue;
+      }
+      int head = 0;
+      int tail = 0;
+      seen[root] = true;
+      Q[tail++] = root;
+      while (head != tail) {
+        int count = grid.getNeighbors(Q[head++], nbrs);
+        for (int i = 0; i < count; i++) {
+          if (!seen[nbrs[i]]) {
+            seen[nbrs[i]] = true;
+            Q[tail++] = nbrs[i];
+          }
+        }
+      }
+      if (tail > bestSize) {
+        bestSize = tail;
+        best = root;
+      }
+    }
+    return best;
+  }
+
+  /**********
+   * helper function for compute
+   * @return the cell reached in ctx that is farthest by the distances
+   *         in ctx, or by nearest if given, -1 if none is reached
+   **/
+  private static int farthest(SearchContext ctx, int n, long[] nearest) {
+    int best = -1;
+    long bestDist = -1;
+    for (int v = 0; v < n; v++) {
+      if (!ctx.isReached(v)) {
+        continue;
+      }
+      long d = (nearest == null) ? ctx.getDistance(v) : nearest[v];
+      if (d > bestDist) {
+        bestDist = d;
+        best = v;
+      }
+    }
+    return best;
+  }
+
+  /**********
+   * @param maze file name, whether the distances are weighted
+   * @return the name of its landmark file for those distances
+   **/
+  public static String landmarkName(String fname, boolean weighted) {
+    return fname + (weighted ? WEIGHTED_SUFFIX : SUFFIX);
+  }
+
+  /**********
+   * Maps the landmark file of a maze
+   * @param maze file name, its key from MazeSnapshot.keyOf, whether
+   *        the distances are weighted, the maze's graph
+   * @return the landmarks, or null if there is no file, or it was
+   *         built from another version of the maze or another format
+   **/
+  public static Landmarks load(String fname, long key, boolean weighted, GridGraph grid)
+      throws IOException {
+    FileChannel ch;
+    try {
+      ch = FileChannel.open(Paths.get(landmarkName(fname, weighted)), StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+    try {
+      if (ch.size() < HEADER_SIZE || ch.size() > Integer.MAX_VALUE) {
+        return null;
+      }
+      MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+      for (int i = 0; i < MAGIC.length; i++) {
+        if (buf.get(i) != MAGIC[i]) {
+          return null;
+        }
+      }
+      if (buf.getInt(4) != VERSION || buf.getLong(8) != key ||
+          buf.getInt(16) != grid.getSize() || buf.getInt(20) != (weighted ? 1 : 0)) {
+        return null;
+      }
+      int k = buf.getInt(24);
+      long tableInts = (long) grid.getNumCells() * k;
+      if (k < 0 || HEADER_SIZE + 4L * (k + tableInts) != ch.size()) {
+        return null;
+      }
+      int[] landmarks = new int[k];
+      for (int i = 0; i < k; i++) {
+        landmarks[i] = buf.getInt(HEADER_SIZE + 4 * i);
+      }
+      buf.position(HEADER_SIZE + 4 * k);
+      return new Landmarks(grid, landmarks, buf.slice().asIntBuffer());
+    } finally {
+      ch.close();
+    }
+  }
+
+  /**********
+   * Saves the tables next to a maze, through a temporary file moved
+   * into place and deleted if that fails, with the default permissions
+   * for new files. Tables too large to map in one piece are not saved
+   * @param maze file name, its key from MazeSnapshot.keyOf, whether
+   *        the distances are weighted
+   **/
+  public void save(String fname, long key, boolean weighted) throws IOException {
+    int k = this.landmarks.length;
+    if (HEADER_SIZE + 4L * (k + (long) this.grid.getNumCells() * k) > Integer.MAX_VALUE) {
+      return;
+    }
+    Path dst = Paths.get(landmarkName(fname, weighted));
+    Path tmp = MazeSnapshot.createTempFileFor(dst);
+    try {
+      DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(tmp.toFile()), 1 << 16));
+      try {
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(key);
+        out.writeInt(this.grid.getSize());
+        out.writeInt(weighted ? 1 : 0);
+        out.writeInt(k);
+        for (int i = 0; i < k; i++) {
+          out.writeInt(this.landmarks[i]);
+        }
+        int total = this.grid.getNumCells() * k;
+        for (int i = 0; i < total; i++) {
+          out.writeInt(this.dist.get(i));
+        }
+      } finally {
+        out.close();
+      }
+      Files.move(tmp, dst, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      try {
+        Files.deleteIfExists(tmp);
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+  }
+
+  /**********
+   * @return the number of landmarks
+   **/
+  public int getNumLandmarks() {
+    return this.landmarks.length;
+  }
+
+  /**********
+   * @return the cell of the i-th landmark
+   **/
+  public int getLandmark(int i) {
+    return this.landmarks[i];
+  }
+
+  /**********
+   * @return the grid the distances were measured on
+   **/
+  public GridGraph getGrid() {
+    return this.grid;
+  }
+
+  public int getNumNodes() {
+    return this.grid.getNumNodes();
+  }
+
+  public int getMaxDegree() {
+    return this.grid.getMaxDegree();
+  }
+
+  public int getNeighbors(int v, int[] out) {
+    return this.grid.getNeighbors(v, out);
+  }
+
+  public long getEdgeCost(int u, int v) {
+    return this.grid.getEdgeCost(u, v);
+  }
+
+  public long getMaxEdgeCost() {
+    return this.grid.getMaxEdgeCost();
+  }
+
+  /**********
+   * @return the largest of the grid's bound and |d(L, u) - d(L, v)|
+   *         over the landmarks L that reach both cells
+   **/
+  public long getCostLowerBound(int u, int v) {
+    long best = this.grid.getCostLowerBound(u, v);
+    int k = this.landmarks.length;
+    int a = u * k;
+    int b = v * k;
+    for (int i = 0; i < k; i++) {
+      int du = this.dist.get(a + i);
+      int dv = this.dist.get(b + i);
+      if (du != UNREACHABLE && dv != UNREACHABLE) {
+        best = Math.max(best, Math.abs(du - dv));
+      }
+    }
+    return best;
+  }
+}
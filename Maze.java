@@ -1,4 +1,4 @@
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.io.*;
 
 /**************************************
@@ -6,264 +6,295 @@ import java.io.*;
  *
  * Written by Sherri Goings, adapted by Andy Exley
  * May 22, 2016
+ *
+ * Every cell is one byte of a flat grid: its south and east walls
+ * (north and west are the neighbors' south and east), whether it was
+ * visited, its base weight, and the direction the generator entered
+ * it from. Generation is an iterative depth-first search that backs
+ * up along those directions, so it needs no call stack or memory
+ * beyond the grid. All randomness comes from one SplittableRandom,
+ * so a seed always gives the same maze file.
  ************************/
 public class Maze {
 
+  // bits of a cell's byte in grid
+  private static final int SOUTH = 1;
+  private static final int EAST = 2;
+  private static final int VISITED = 4;
+  private static final int VALUE_SHIFT = 3;
+  private static final int VALUE_MASK = 7;
+  private static final int FROM_SHIFT = 6;
+  // directions north, south, east, west
+  private static final int N = 0;
+  private static final int S = 1;
+  private static final int E = 2;
+  private static final int W = 3;
+
   private int size;
-  private Cell[][] grid;
+  private byte[] grid;
+  // id offset of a step in each direction
+  private int[] step;
+  private SplittableRandom rgen;
 
-  private int totalnumcells;
+  private long totalnumcells;
 
   /********************
    * Constructor that builds a maze with the given grid size
    *******************/
   public Maze(int gridSize) {
-    Random randw = new Random();
+    this(gridSize, new SplittableRandom());
+  }
+
+  /********************
+   * Constructor that builds a maze with the given grid size whose
+   * layout and weights are fixed by seed
+   *******************/
+  public Maze(int gridSize, long seed) {
+    this(gridSize, new SplittableRandom(seed));
+  }
+
+  private Maze(int gridSize, SplittableRandom rgen) {
+    this.rgen = rgen;
     size = gridSize + 2;
-    totalnumcells = (2*gridSize+1) * (2*gridSize+1);
-    grid = new Cell[size][size];
+    totalnumcells = (2L*gridSize+1) * (2L*gridSize+1);
+    if ((long) size * size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Maze of size " + gridSize + " is too large");
+    }
+    step = new int[] {-size, size, 1, -1};
+    grid = new byte[size * size];
     for (int i = 0; i < size; i++) {
       for (int j = 0; j < size; j++) {
-        boolean vis = false;
+        int cell = SOUTH | EAST | (rgen.nextInt(8) << VALUE_SHIFT);
         if (i == 0 || i == size - 1 || j == 0 || j == size-1) {
-          vis = true;
+          cell |= VISITED;
         }
-        grid[i][j] = new Cell(vis, randw.nextInt(8) + 1);
+        grid[i * size + j] = (byte) cell;
       }
     }
   }
-   
-  public void visit(int prevrow, int prevcol, int row, int col) {
-    if (grid[row][col].visited) {
-      return;
-    }
-    if (prevrow >= 0) {
-      if (prevcol > col) {   //moved to the west
-        grid[row][col].removeWall('e');
-        grid[prevrow][prevcol].removeWall('w');
-      } else if (prevcol < col) {
-        grid[row][col].removeWall('w');
-        grid[prevrow][prevcol].removeWall('e');
-      } else {
-        if (prevrow > row) {
-          grid[row][col].removeWall('s');
-          grid[prevrow][prevcol].removeWall('n');
-        } else {
-          grid[row][col].removeWall('n');
-          grid[prevrow][prevcol].removeWall('s');
+
+  /********************
+   * Carves the maze with a depth-first search from the upper left
+   * cell, knocking down the wall to a random unvisited neighbor until
+   * there is none, then backing up the way it came
+   *******************/
+  public void generate() {
+    int start = size + 1;
+    int cur = start;
+    grid[cur] |= VISITED;
+    int[] open = new int[4];
+    while (true) {
+      int n = 0;
+      for (int d = 0; d < 4; d++) {
+        if ((grid[cur + step[d]] & VISITED) == 0) {
+          open[n++] = d;
+        }
+      }
+      if (n == 0) {
+        if (cur == start) {
+          return;
         }
+        // back up to the cell we came from
+        cur -= step[(grid[cur] >>> FROM_SHIFT) & 3];
+        continue;
       }
+      int d = open[rgen.nextInt(n)];
+      int next = cur + step[d];
+      removeWall(cur, d);
+      grid[next] |= (byte) (VISITED | (d << FROM_SHIFT));
+      cur = next;
     }
-    grid[row][col].visited = true;
-    int[][] indices = getNeighborIndicesRandomOrder(row,col);
+  }
 
-    for (int i=0; i<indices.length; i++) {
-      visit(row,col,indices[i][0],indices[i][1]);
+  /********************
+   * removes the wall on side d of a cell, which is the neighbor's
+   * wall for north and west
+   *******************/
+  private void removeWall(int cell, int d) {
+    if (d == N) {
+      grid[cell - size] &= ~SOUTH;
+    } else if (d == S) {
+      grid[cell] &= ~SOUTH;
+    } else if (d == E) {
+      grid[cell] &= ~EAST;
+    } else {
+      grid[cell - 1] &= ~EAST;
     }
   }
 
-  public int[][] getNeighborIndicesRandomOrder(int row, int col) {
-    int[][] indices = new int[][] {{row,col-1},{row,col+1},{row-1,col},{row+1,col}};
-  
-    Random rgen = new Random();
-    for (int i=0; i<indices.length; i++) {
-      int randomPosition = rgen.nextInt(indices.length);
-      int[] temp = indices[i];
-      indices[i] =indices[randomPosition];
-      indices[randomPosition] = temp;
-    }
-    return indices;
+  private boolean hasNorthWall(int row, int col) {
+    return (grid[(row - 1) * size + col] & SOUTH) != 0;
+  }
+
+  private boolean hasSouthWall(int row, int col) {
+    return (grid[row * size + col] & SOUTH) != 0;
+  }
+
+  private boolean hasEastWall(int row, int col) {
+    return (grid[row * size + col] & EAST) != 0;
+  }
+
+  /********************
+   * @return the cell's base weight plus 0 or 1 at random
+   *******************/
+  private int getRandVal(int row, int col) {
+    int value = ((grid[row * size + col] >>> VALUE_SHIFT) & VALUE_MASK) + 1;
+    return value + rgen.nextInt(2);
   }
 
   public String toString() {
-    String retStr = " S ";
+    StringBuilder sb = new StringBuilder(" S ");
     for (int i=0; i<size-3; i++) {
-      retStr += "__";
+      sb.append("__");
     }
-    retStr+='\n';
+    sb.append('\n');
 
     for (int i=1; i<size-1; i++) {
-      String arow = "|";
+      sb.append('|');
       for (int j=1; j<size-1; j++) {
-        Cell acell = grid[i][j];
-        if (acell.walls[1]=='s') {
-          if (acell.walls[2]=='e') {
-            arow += "_|";
-          } else {
-            arow += "__";
-          }
+        sb.append(hasSouthWall(i, j) ? '_' : ' ');
+        if (hasEastWall(i, j)) {
+          sb.append('|');
         } else {
-          if (acell.walls[2]=='e') {
-            arow += " |";
-          } else {
-            arow += "  ";
-          }
+          sb.append(hasSouthWall(i, j) ? '_' : ' ');
         }
       }
-      retStr += arow+'\n';
+      sb.append('\n');
     }
-    retStr = retStr.substring(0,retStr.length()-4)+" E \n";
-    return retStr;
+    sb.setLength(sb.length() - 4);
+    sb.append(" E \n");
+    return sb.toString();
   }
 
-  /***************
-   * Used to create unique tags for cells in the maze
-   */
-  private String nextTag(String curTag) {
-    if(curTag == null) {
-      System.out.println(totalnumcells);
-      if(totalnumcells < 26) { 
-        return "a";
-      } else if (totalnumcells < 26*26) {
-        return "aa";
-      } else {
-        return "aaa";
+  /*******************
+   * @return number of rows and columns in the maze file,
+   * 2 * gridSize + 1
+   ***************/
+  public int getFileSize() {
+    return (size - 2) * 2 + 1;
+  }
+
+  /*******************
+   * removes the upper left and lower right walls so the maze has a
+   * start and an end
+   ***************/
+  private void openEntranceAndExit() {
+    grid[1] &= ~SOUTH;
+    grid[(size-2) * size + size-2] &= ~SOUTH;
+  }
+
+  /*******************
+   * Fills in one row of the grid of cell weights written to maze
+   * files, 0 for walls. Rows draw random numbers, so they must be
+   * filled in order 0 .. getFileSize() - 1
+   * @param file row, array of getFileSize() weights to fill
+   ***************/
+  public void fillRow(int fileRow, int[] out) {
+    int last = getFileSize() - 1;
+    out[0] = 0;
+    if (fileRow == last) {
+      // final line: only the exit below the last cell is open
+      for (int col = 1; col < size - 1; col++) {
+        out[2*col-1] = hasSouthWall(size-2, col) ? 0 : 1;
+        out[2*col] = 0;
       }
-    } else {
-      char last = curTag.charAt(curTag.length() - 1);
-      if(last < 'z') {
-        return curTag.substring(0, curTag.length() - 1) + ((Character)((char)(last+1))).toString();
-      } else if(totalnumcells < 26*26) {
-        last = 'a';
-        return "" + ((Character)((char)(curTag.charAt(0)+1))).toString() + last;
-      } else {
-        last = 'a';
-        if(curTag.charAt(1) < 'z') {
-          return "" + ((Character)((char)(curTag.charAt(0)))).toString() + ((Character)((char)(curTag.charAt(1)+1))).toString() + 'a';
+    } else if (fileRow % 2 == 0) {
+      // connector line: a north opening and a wall corner for every cell
+      int row = fileRow / 2 + 1;
+      for (int col = 1; col < size - 1; col++) {
+        if (hasNorthWall(row, col) && (row == 1 || rgen.nextInt(4) > 2)) {
+          out[2*col-1] = 0;
         } else {
-          return "" + ((Character)((char)(curTag.charAt(0)+1))).toString() + "aa";
+          out[2*col-1] = getRandVal(row, col);
         }
+        out[2*col] = 0;
+      }
+    } else {
+      // cell containing line: every cell and the opening or wall to its east
+      int row = (fileRow + 1) / 2;
+      for (int col = 1; col < size - 1; col++) {
+        out[2*col-1] = getRandVal(row, col);
+        out[2*col] = hasEastWall(row, col) ? 0 : getRandVal(row, col);
       }
     }
   }
 
   public void writeToFileOneZeroFormat(String filename) {
-    // remove upper left and lower right walls so will have start and end
-    grid[1][1].removeWall('n');
-    grid[size-2][size-2].removeWall('s');
-    String tag = nextTag(null);
     try{
-      Random rgen = new Random();
       FileWriter fstream = new FileWriter(filename);
-      BufferedWriter out = new BufferedWriter(fstream);
-      out.write("" + ((size - 2) * 2 + 1) + " " + ((size - 2) * 2 + 1) + "\n");
-      for (int row = 1; row < size - 1; row++) {
-        // write next 2 lines of the maze file
-        // write connector line
-        String line = tag + "0 ";
-        tag = nextTag(tag);
-        for (int col = 1; col < size - 1; col++) {
-          if (grid[row][col].walls[0] == 'n' && (row == 1 || rgen.nextInt(4) > 2)) {
-            line += tag + "0 ";
-            tag = nextTag(tag);
-          } else {
-            //line += "1 ";
-            line += tag + grid[row][col].getRandVal() + " ";
-            tag = nextTag(tag);
-          }
-          if (row == size && col == size - 2) {
-            line += tag + "1 ";
-            tag = nextTag(tag);
-            //line += grid[row][col] + " ";
-          } else {
-            line += tag + "0 ";
-            tag = nextTag(tag);
-          }
-        }
-        out.write(line + "\n");
-        // write cell containing line
-        line = tag + "0 ";
-        tag = nextTag(tag);
-        for (int col = 1; col < size - 1; col++) {
-          //line += "1 ";
-          line += tag + grid[row][col].getRandVal() + " ";
-          tag = nextTag(tag);
-          if (grid[row][col].walls[2] == 'e') {
-            line += tag + "0 ";
-          } else {
-            line += tag + grid[row][col].getRandVal() + " ";
-            //line += "1 ";
-          }
-          tag = nextTag(tag);
-        }
-        out.write(line + "\n");
-      }
-      // write final line of maze file
-      String line = tag + "0 ";
-      tag = nextTag(tag);
-      for (int col = 1; col < size - 1; col++) {
-        if (grid[size-2][col].walls[1] == 's') {
-          line += tag + "0 ";
-        } else {
-          line += tag + "1 ";
-          //line += grid[row][col] + " ";
-        }
-        tag = nextTag(tag);
-        line += tag + "0 ";
-        tag = nextTag(tag);
-      }
-      out.write(line + "\n");
+      BufferedWriter out = new BufferedWriter(fstream, 1 << 16);
+      writeTo(out);
       out.close();
-    } catch (Exception e) { 
-      System.err.println("Error: " + e.getMessage()); 
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
     }
   }
 
   /*******************
-   * private class Cell, represents a single maze cell
+   * Writes the maze as label+weight text, one line at a time, in
+   * time linear in the size of the file
+   * @param where to write the maze
    ***************/
-  private class Cell {
-    private char[] walls;
-    private boolean visited;
-    private int value;
-
-    public Cell(boolean vis, int val) {
-      walls = new char[] {'n','s','e','w'};
-      visited = vis;
-      value = val;
-    }
-  
-    public void removeWall(char wall) {
-      for (int i=0; i<4; i++) {
-        if (walls[i]==wall) {
-          walls[i]='-';
-          break;
-        }
+  public void writeTo(Appendable out) throws IOException {
+    openEntranceAndExit();
+    int n = getFileSize();
+    int width = LabelIndex.tagWidth(totalnumcells);
+    int[] row = new int[n];
+    StringBuilder line = new StringBuilder();
+    long id = 0;
+    out.append(n + " " + n + "\n");
+    for (int r = 0; r < n; r++) {
+      fillRow(r, row);
+      line.setLength(0);
+      for (int col = 0; col < n; col++) {
+        LabelIndex.appendTag(line, id++, width);
+        line.append(row[col]).append(' ');
       }
+      line.append('\n');
+      out.append(line);
     }
-  
-    public String toString() {
-    /*
-      // herein lies old toString
-      String retStr = "";
-      for (int i=0; i<4; i++) {
-        retStr += walls[i];
-      }
-      if (visited==true) {
-        retStr+='v';
-      } else {
-        retStr+=' ';
-      }
-      return retStr;*/
-      return "" + value;
-    }
+  }
 
-    public String getRandVal() {
-      Random r = new Random();
-      return "" + (value + r.nextInt(2));
+  /*******************
+   * Writes the maze in the compact binary format, see MazeBinaryFormat
+   ***************/
+  public void writeToFileBinaryFormat(String filename) {
+    openEntranceAndExit();
+    try {
+      MazeBinaryFormat.write(filename, getFileSize(), new MazeBinaryFormat.RowSource() {
+        public void fillRow(int row, int[] out) {
+          Maze.this.fillRow(row, out);
+        }
+      });
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
     }
-          
   }
-    
+
   public static void main(String args[]) {
     if (args.length<1) {
-      System.out.println("usage: java Maze.java size");
+      System.out.println("usage: java Maze.java size [seed] [binary]");
       return;
     }
-    Maze maze = new Maze(Integer.parseInt(args[0]));
-    maze.visit(-1,-1,1,1);
+    boolean binary = false;
+    Long seed = null;
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].equals("binary")) {
+        binary = true;
+      } else {
+        seed = Long.parseLong(args[i]);
+      }
+    }
+    int gridSize = Integer.parseInt(args[0]);
+    Maze maze = (seed == null) ? new Maze(gridSize) : new Maze(gridSize, seed);
+    maze.generate();
 //    System.out.println(maze);
-    System.out.println("Maze written to maze" + args[0] + ".txt");
-    maze.writeToFileOneZeroFormat("maze" + args[0] + ".txt");
+    if (binary) {
+      System.out.println("Maze written to maze" + args[0] + ".bin");
+      maze.writeToFileBinaryFormat("maze" + args[0] + ".bin");
+    } else {
+      System.out.println("Maze written to maze" + args[0] + ".txt");
+      maze.writeToFileOneZeroFormat("maze" + args[0] + ".txt");
+    }
   }
 }
@@ -0,0 +1,234 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Compact binary maze files. A 16 byte header holds the magic bytes
+ * "MAZB", the format version and the number of rows and columns, all
+ * big-endian; it is followed by the cell weights in row-major order,
+ * two per byte (cell 2k in the low nibble of byte k, cell 2k + 1 in
+ * the high nibble). Labels are not stored: a cell's label is the tag
+ * Maze would give its position, see LabelIndex.
+ *
+ * Weights must lie in 0 .. 15, which covers every maze Maze writes.
+ * Loading maps the file and reads the weights in place.
+ *********************/
+
+public class MazeBinaryFormat {
+
+  private static final byte[] MAGIC = {'M', 'A', 'Z', 'B'};
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 16;
+
+  /**********
+   * Supplies a maze one row at a time, so a maze can be written
+   * without holding all of its weights
+   **/
+  public interface RowSource {
+    /**********
+     * fills out with the weights of the given row; rows are asked
+     * for in order
+     **/
+    void fillRow(int row, int[] out);
+  }
+
+  /**********
+   * writes a square maze in the binary format
+   * @param file name, width of the maze, row-major cell weights
+   **/
+  public static void write(String fname, final int size, final int[] weights) throws IOException {
+    if (weights.length != size * size) {
+      throw new IllegalArgumentException("Expected " + (size * size) +
+                                         " weights, got " + weights.length);
+    }
+    write(fname, size, new RowSource() {
+      public void fillRow(int row, int[] out) {
+        System.arraycopy(weights, row * size, out, 0, size);
+      }
+    });
+  }
+
+  /**********
+   * writes a square maze in the binary format, row by row
+   * @param file name, width of the maze, source of its rows
+   **/
+  public static void write(String fname, int size, RowSource rows) throws IOException {
+    DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(fname), 1 << 16));
+    try {
+      out.write(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(size);
+      out.writeInt(size);
+      int[] row = new int[size];
+      byte[] packed = new byte[size / 2 + 1];
+      long id = 0;
+      // low nibble waiting for its partner, -1 if none; it carries
+      // over to the next row when size is odd
+      int lo = -1;
+      for (int r = 0; r < size; r++) {
+        rows.fillRow(r, row);
+        int n = 0;
+        for (int col = 0; col < size; col++, id++) {
+          int w = checkNibble(row[col], id);
+          if (lo < 0) {
+            lo = w;
+          } else {
+            packed[n++] = (byte) (lo | (w << 4));
+            lo = -1;
+          }
+        }
+        out.write(packed, 0, n);
+      }
+      if (lo >= 0) {
+        out.write(lo);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**********
+   * helper function for write
+   * @return weight, if it fits in 4 bits
+   **/
+  private static int checkNibble(int weight, long id) {
+    if (weight < 0 || weight > 15) {
+      throw new IllegalArgumentException("Weight " + weight + " of cell " + id +
+                                         " does not fit the binary format");
+    }
+    return weight;
+  }
+
+  /**********
+   * @param file name
+   * @return whether the file starts with the binary format's magic bytes
+   **/
+  public static boolean isBinary(String fname) throws IOException {
+    FileChannel ch = FileChannel.open(Paths.get(fname), StandardOpenOption.READ);
+    try {
+      ByteBuffer head = ByteBuffer.allocate(MAGIC.length);
+      while (head.hasRemaining() && ch.read(head) > 0) {
+        // keep reading until the magic bytes are in
+      }
+      if (head.hasRemaining()) {
+        return false;
+      }
+      for (int i = 0; i < MAGIC.length; i++) {
+        if (head.get(i) != MAGIC[i]) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      ch.close();
+    }
+  }
+
+  /**********
+   * Memory-maps a binary maze file. The returned graph reads its
+   * weights straight from the mapping, so nothing is copied; the
+   * mapping stays valid after the file is closed
+   * @param file name
+   * @return a grid graph over the file's weights
+   **/
+  public static GridGraph map(String fname) throws IOException {
+    FileChannel ch = FileChannel.open(Paths.get(fname), StandardOpenOption.READ);
+    try {
+      if (ch.size() < HEADER_SIZE) {
+        throw new IllegalArgumentException("Malformed binary maze file: no header");
+      }
+      MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+      for (int i = 0; i < MAGIC.length; i++) {
+        if (buf.get(i) != MAGIC[i]) {
+          throw new IllegalArgumentException("Not a binary maze file: " + fname);
+        }
+      }
+      int version = buf.getInt(4);
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported binary maze version " + version);
+      }
+      int rows = buf.getInt(8);
+      int cols = buf.getInt(12);
+      if (rows != cols || rows < 0) {
+        throw new IllegalArgumentException("Binary maze is not square: " + rows + "x" + cols);
+      }
+      if ((long) rows * cols > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Binary maze is too large: " + rows + "x" + cols +
+                                           " cells do not fit in int cell ids");
+      }
+      long bytes = ((long) rows * cols + 1) / 2;
+      if (ch.size() < HEADER_SIZE + bytes) {
+        throw new IllegalArgumentException("Malformed binary maze file: truncated weights");
+      }
+      buf.position(HEADER_SIZE);
+      return new GridGraph(rows, buf.slice());
+    } finally {
+      ch.close();
+    }
+  }
+
+  /**********
+   * converts a maze text file into the binary format. Labels are not
+   * kept; the binary file labels cells by position
+   * @param text file name, binary file name
+   **/
+  public static void textToBinary(String src, String dst) throws IOException {
+    MazeReader reader = new MazeReader(src, true);
+    write(dst, reader.getSize(), reader.getWeights());
+  }
+
+  /**********
+   * converts a binary maze file into the text format, labelling the
+   * cells with generated tags
+   * @param binary file name, text file name
+   **/
+  public static void binaryToText(String src, String dst) throws IOException {
+    GridGraph grid = map(src);
+    int size = grid.getSize();
+    int width = LabelIndex.tagWidth((long) size * size);
+    BufferedWriter out = new BufferedWriter(new FileWriter(dst), 1 << 16);
+    try {
+      out.write(size + " " + size + "\n");
+      StringBuilder line = new StringBuilder();
+      for (int row = 0; row < size; row++) {
+        line.setLength(0);
+        for (int col = 0; col < size; col++) {
+          int id = grid.cellId(row, col);
+          LabelIndex.appendTag(line, id, width);
+          line.append(grid.getWeight(id)).append(' ');
+        }
+        line.append('\n');
+        out.append(line);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**********
+   * converts between the text and binary formats
+   **/
+  public static void main(String[] args) throws IOException {
+    if (args.length != 3 || !(args[0].equals("toBinary") || args[0].equals("toText"))) {
+      System.out.println("usage: java MazeBinaryFormat toBinary|toText source destination");
+      return;
+    }
+    if (args[0].equals("toBinary")) {
+      textToBinary(args[1], args[2]);
+    } else {
+      binaryToText(args[1], args[2]);
+    }
+    System.out.println("Maze written to " + args[2]);
+  }
+}
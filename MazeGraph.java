@@ -1,6 +1,9 @@
 import java.util.*;
 import java.lang.*;
 import java.io.*;
+import java.lang.ref.WeakReference;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.ForkJoinPool;
 
 /*********************
  * @Authors: Angel Villa, Qimeng Yu
@@ -12,134 +15,233 @@ import java.io.*;
 
 public class MazeGraph {
   
-  private BasicGraph<String> graph;
-  // an array for vertices' labels
-  private String[][] labArray;
-  // an array for vertices' initial distances (weights)
-  private int[][] distanceArray;
+  private GridGraph grid;
+  // file the maze was loaded from, and whether weights were kept
+  private String fname;
+  private boolean weighted;
+  // finds the cell carrying a given label
+  private LabelIndex labelIndex;
+  // component of every open cell, to refuse queries between cells
+  // with no path before searching
+  private ComponentIndex components;
+  // open cells packed into row bitmaps, built on first use
+  private WavefrontSearch wavefront;
   // width, or height of the input maze
   private int size;
+  // whether the label solvers search the corridor-contracted graph,
+  // and that graph, built on first use
+  private boolean contracted;
+  private CorridorGraph corridors;
+  // whether the label solvers search with dead ends filled in, and the
+  // filling for the last pair of cells searched
+  private boolean filling;
+  private DeadEndFilling deadEnds;
+  // clusters and entrances for hierarchical search, built on first use
+  private HierarchicalGraph hierarchy;
+  // exact distances without search, built on first use; null if the
+  // maze has too many cycles, which oracleBuilt tells from not built
+  private DistanceOracle oracle;
+  private boolean oracleBuilt;
+  // landmark distances for A*, loaded or computed on first use
+  private Landmarks landmarks;
+  // whether cells were edited since loading, so files saved next to
+  // the maze no longer describe it
+  private boolean edited;
+  // incremental searches to tell about edits, and the one the label
+  // solver kept for the last pair of cells
+  private ArrayList<WeakReference<IncrementalSearch>> planners =
+      new ArrayList<WeakReference<IncrementalSearch>>();
+  private IncrementalSearch planner;
   
   /**********
    * creates a graph with non-wall vertices
    * each vertex is assigned with its neighbors and distance
    * @param input file name, "weighted" or "unweighted"
    **/
-  public MazeGraph(String fname, String w) {  
+  public MazeGraph(String fname, String w) {
+    this(fname, w, false);
+  }
+
+  /**********
+   * creates a graph with non-wall vertices, optionally printing every
+   * vertex with its weight and neighbors once loaded
+   * @param input file name, "weighted" or "unweighted", whether to
+   * print the graph
+   **/
+  public MazeGraph(String fname, String w, boolean dump) {
     if (w.equals("weighted")) {
-      makeGraph(fname);
+      loadMaze(fname, true);
     } else if (w.equals("unweighted")) {
-      makeUnweightedGraph(fname);
+      loadMaze(fname, false);
     } else {
       throw new IllegalArgumentException("Please specify weighted or unweighted");
     }
-    this.graph = new BasicGraph<String>();
-    for (int i = 0; i < this.size; i++) {
-      for (int j = 0; j < this.size; j++) {
-        int dist = distanceArray[i][j];
-        if (dist != 0) {
-          // put non-wall vertices to graph 
-          this.graph.addVertex(labArray[i][j]);
-          // assign each non-wall vertex its weight
-          this.graph.getVertex(labArray[i][j]).setWeight((double) dist); 
-        }
+    if (dump) {
+      try {
+        writeTo(System.out);
+        System.out.println();
+      } catch (IOException e) {
+        System.err.println("Error: " + e.getMessage());
       }
     }
-    makeEdges();
-    System.out.println(this.graph.toString());
   }
   
   /**********
    * helper function for MazeGraph
-   * reads user's input file, collects information including 
-   * non-wall vertices' labels, distances, and connections
-   * and create a weighted graph
+   * reads user's input file in a single pass, collecting the non-wall
+   * vertices' weights into the grid graph and their labels into the
+   * label index, see MazeReader. Files in the binary format are
+   * memory-mapped instead, see MazeBinaryFormat. A parsed text file
+   * is saved as a snapshot, which later loads map instead of parsing
+   * the file again while it is unchanged, see MazeSnapshot
+   * @param input file name, whether to keep weights or give every
+   * non-wall vertex the same weight
    **/
-  public void makeGraph(String fname) {
-    File tfile = new File(fname);
+  public void loadMaze(String fname, boolean weighted) {
+    this.fname = fname;
+    this.weighted = weighted;
+    this.edited = false;
+    invalidate();
+    this.planners.clear();
+    this.planner = null;
     try {
-      Scanner scan = new Scanner(tfile);
-      // read the first number in the file to determine the size
-      // of arrays containing vertices' labels and distances
-      String next = scan.next();
-      this.size = Integer.parseInt(next);	
-      // an array for vertices labels
-      this.labArray = new String[this.size][this.size];
-      // an array for vertices distances
-      this.distanceArray = new int[this.size][this.size];
-      String nextLine = scan.nextLine();
-      // read the file word by word
-      for (int i = 0; i < this.size; i++) {
-        for (int j = 0; j < this.size; j++) {
-          String str = scan.next();
-          // add alphabets to label array
-          labArray[i][j] = str.split("\\d+")[0];
-          // add numbers to distance array
-          distanceArray[i][j] = Integer.parseInt(str.split("[a-zA-Z]+")[1]);
-        }
+      if (MazeBinaryFormat.isBinary(fname)) {
+        GridGraph mapped = MazeBinaryFormat.map(fname);
+        useGrid(mapped, new LabelIndex(mapped.getNumCells()), weighted);
+        return;
+      }
+      long key = MazeSnapshot.keyOf(fname);
+      MazeSnapshot snapshot = null;
+      try {
+        snapshot = MazeSnapshot.load(fname, key);
+      } catch (IOException e) {
+        System.err.println("Warning, cannot read snapshot, parsing the maze: " + e.getMessage());
       }
-    } catch(FileNotFoundException e) {
+      if (snapshot != null) {
+        useGrid(snapshot.getGrid(), snapshot.getLabelIndex(), weighted);
+        return;
+      }
+      MazeReader reader = new MazeReader(fname, true);
+      GridGraph parsed = new GridGraph(reader.getSize(), reader.getWeights());
+      try {
+        MazeSnapshot.save(fname, key, parsed, reader.getLabelIndex());
+      } catch (IOException e) {
+        System.err.println("Warning, cannot save snapshot: " + e.getMessage());
+      }
+      useGrid(parsed, reader.getLabelIndex(), weighted);
+    } catch (NoSuchFileException e) {
       System.err.println("Error, cannot find file");
       System.exit(1);
+    } catch (IOException e) {
+      System.err.println("Error, cannot read file: " + e.getMessage());
+      System.exit(1);
     }
   }
   
   /**********
-   * helper function for MazeGraph
-   * reads user's input file as an unweighted graph, collects information including 
-   * non-wall vertices' labels, and connections
+   * helper function for loadMaze
+   * uses a loaded graph as is, or for unweighted graphs a copy with
+   * every open weight replaced by 1, and labels its components
+   * @param the weighted graph, its labels, whether to keep weights
    **/
-  public void makeUnweightedGraph(String fname) {
-    File tfile = new File(fname);
-    try {
-      Scanner scan = new Scanner(tfile);
-      // read the first number in the file to determine the size
-      // of arrays containing vertices' labels and distances
-      String next = scan.next();
-      this.size = Integer.parseInt(next);	
-      // an array for vertices labels
-      this.labArray = new String[this.size][this.size];
-      // an array for vertices distances
-      this.distanceArray = new int[this.size][this.size];
-      String nextLine = scan.nextLine();
-      // read the file word by word
-      for (int i = 0; i < this.size; i++) {
-        for (int j = 0; j < this.size; j++) {
-          String str = scan.next();
-          // add alphabets to label array
-          labArray[i][j] = str.split("\\d+")[0];
-          // add numbers to distance array
-          if (str.split("[a-zA-Z]+")[1].equals("0")) {
-            distanceArray[i][j] = 0;
-          } else {
-           // distance is arbitrary since it's an unweighted graph
-            distanceArray[i][j] = 1;
-          }
-        }
+  private void useGrid(GridGraph loaded, LabelIndex labels, boolean weighted) {
+    this.size = loaded.getSize();
+    this.labelIndex = labels;
+    if (weighted) {
+      this.grid = loaded;
+    } else {
+      int[] weights = new int[loaded.getNumCells()];
+      for (int i = 0; i < weights.length; i++) {
+        weights[i] = loaded.isOpen(i) ? 1 : 0;
       }
-    } catch(FileNotFoundException e) {
-      System.err.println("Error, cannot find file");
-      System.exit(1);
+      this.grid = new GridGraph(this.size, weights);
     }
+    this.components = new ComponentIndex(this.grid);
   }
-  
+
   /**********
-   * helper function for MazeGraph
-   * add edges between related non-wall vertices
-   **/
-  public void makeEdges() {
-    // Note: since walls are not included in our graph, though we call addEdge 
-    // on some of these "illegal" vertices, those edges will not be made
-    for (int i = 1; i < this.size - 1; i++) {
-      for (int j = 1; j < this.size - 1; j++) {
-        this.graph.addEdge(labArray[i][j], labArray[i-1][j]);
-        this.graph.addEdge(labArray[i][j], labArray[i+1][j]);
-        this.graph.addEdge(labArray[i][j], labArray[i][j-1]);
-        this.graph.addEdge(labArray[i][j], labArray[i][j+1]);
+   * Changes the weight of a vertex in place, 0 to make it a wall, and
+   * brings every structure built from the old weights up to date:
+   * incremental searches and the hierarchy are repaired, the rest is
+   * dropped and built again when next used. An unweighted graph keeps
+   * weight 1 for every open vertex. Edits must not run during searches
+   * @Param vertex label, its new weight
+   **/
+  public void setWeight(String lab, int w) {
+    setCellWeight(anyCellId(lab), w);
+  }
+
+  /**********
+   * Turns a wall into an open vertex of weight 1, or an open vertex
+   * into a wall, see setWeight
+   * @Param vertex label
+   **/
+  public void toggleWall(String lab) {
+    int id = anyCellId(lab);
+    setCellWeight(id, this.grid.isOpen(id) ? 0 : 1);
+  }
+
+  /**********
+   * Changes the weight of a cell, see setWeight
+   * @Param cell id, its new weight
+   **/
+  public synchronized void setCellWeight(int id, int w) {
+    if (!this.weighted && w != 0) {
+      w = 1;
+    }
+    if (this.grid.getWeight(id) == w) {
+      return;
+    }
+    boolean wasOpen = this.grid.isOpen(id);
+    this.grid.setWeight(id, w);
+    this.edited = true;
+    if (!wasOpen) {
+      this.components.cellOpened(id);
+    } else if (w == 0) {
+      this.components.cellClosed(id);
+    }
+    HierarchicalGraph h = this.hierarchy;
+    invalidate();
+    if (h != null) {
+      h.update(id);
+      this.hierarchy = h;
+    }
+    for (Iterator<WeakReference<IncrementalSearch>> it = this.planners.iterator(); it.hasNext(); ) {
+      IncrementalSearch p = it.next().get();
+      if (p == null) {
+        it.remove();
+      } else {
+        p.cellChanged(id);
       }
     }
   }
-  
+
+  /**********
+   * helper function for loadMaze and setCellWeight
+   * drops every structure built from the weights
+   **/
+  private void invalidate() {
+    this.wavefront = null;
+    this.corridors = null;
+    this.deadEnds = null;
+    this.hierarchy = null;
+    this.oracle = null;
+    this.oracleBuilt = false;
+    this.landmarks = null;
+  }
+
+  /**********
+   * @Param vertex label
+   * @Return the id of the corresponding cell, wall or not
+   **/
+  private int anyCellId(String lab) {
+    int id = this.labelIndex.getCellId(lab);
+    if (id < 0) {
+      throw new NoSuchElementException("Vertex not found!");
+    }
+    return id;
+  }
+
   /**********
    * This method returns an array of a vertex's indices in 
    * label/weight arrays
@@ -147,22 +249,165 @@ public class MazeGraph {
    * @Return an array of corresponding vertex's indices
    **/
   public int[] getVertInd(String lab) {
-    int[] indArray = new int[2];
-    // run through label array till it finds the right vertex
-    if (this.graph.hasVertex(lab)) {
-      for (int i = 0; i < this.size; i++) {
-        for (int j = 0; j < this.size; j++) {
-          if (labArray[i][j].equals(lab)) {
-            indArray[0] = i;
-            indArray[1] = j;
-            return indArray;
-          }
-        }
-      } 
+    int id = getCellId(lab);
+    return new int[] {this.grid.rowOf(id), this.grid.colOf(id)};
+  }
+
+  /**********
+   * @Param vertex label
+   * @Return the id of the corresponding cell in the grid graph
+   **/
+  public int getCellId(String lab) {
+    int id = this.labelIndex.getCellId(lab);
+    if (!this.grid.isOpen(id)) {
+      throw new NoSuchElementException("Vertex not found!");
     }
-    throw new NoSuchElementException("Vertex not found!");
+    return id;
+  }
+
+  /**********
+   * @Param cell ids along a path
+   * @Return a list of the corresponding vertices' labels
+   **/
+  private List<String> pathLabels(int[] path) {
+    ArrayList<String> VLString = new ArrayList<String>(path.length);
+    for (int i = 0; i < path.length; i++) {
+      VLString.add(this.labelIndex.getLabel(path[i]));
+    }
+    return VLString;
+  }
+
+  /**********
+   * @Param two cell ids
+   * @Return whether there is a path between the two cells, answered
+   * from the component index without searching
+   **/
+  public boolean isConnected(int start, int end) {
+    return this.components.connected(start, end);
+  }
+
+  /**********
+   * @Return the connected components of this maze's open cells
+   **/
+  public ComponentIndex getComponents() {
+    return this.components;
+  }
+
+  /**********
+   * @Return a frozen copy of this maze as it is now, to answer batches
+   * of queries on many threads, see CompiledMaze. Later edits of this
+   * maze do not change it
+   **/
+  public synchronized CompiledMaze compile() {
+    int[] weights = new int[this.grid.getNumCells()];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = this.grid.getWeight(i);
+    }
+    String source = null;
+    long key = 0;
+    if (!this.edited) {
+      try {
+        key = MazeSnapshot.keyOf(this.fname);
+        source = this.fname;
+      } catch (IOException e) {
+        // landmarks are then computed instead of read
+      }
+    }
+    return new CompiledMaze(this.size, weights, this.labelIndex, source, key, this.weighted);
+  }
+
+  /**********
+   * @Return a new search context sized for this maze. A context may be
+   * reused for any number of queries, but only by one thread at a time
+   **/
+  public SearchContext newSearchContext() {
+    return new SearchContext(this.grid.getNumCells());
   }
   
+  /**********
+   * Turns corridor compression on or off for the label solvers. With
+   * it on, they search the corridor-contracted graph, see
+   * CorridorGraph, and expand the path back into cells. Shortest-cost
+   * solvers find equally short paths either way; breadth-first
+   * solvers then count corridors rather than steps
+   * @Param whether to search the contracted graph
+   **/
+  public void setCorridorCompression(boolean on) {
+    this.contracted = on;
+  }
+
+  /**********
+   * @Return whether the label solvers search the contracted graph
+   **/
+  public boolean isCorridorCompression() {
+    return this.contracted;
+  }
+
+  /**********
+   * @Return the corridor-contracted graph of this maze, building it
+   * on first use
+   **/
+  public synchronized CorridorGraph getCorridorGraph() {
+    if (this.corridors == null) {
+      this.corridors = new CorridorGraph(this.grid);
+    }
+    return this.corridors;
+  }
+
+  /**********
+   * Turns dead-end filling on or off for the label solvers. With it
+   * on, they search the grid with every dead-end branch filled in,
+   * see DeadEndFilling. The filling is kept for the last pair of
+   * cells searched, so repeated queries between the same entrance and
+   * exit fill only once. Has no effect while corridor compression is
+   * on, whose dead ends are already single edges
+   * @Param whether to fill in dead ends
+   **/
+  public void setDeadEndFilling(boolean on) {
+    this.filling = on;
+  }
+
+  /**********
+   * @Return whether the label solvers search with dead ends filled in
+   **/
+  public boolean isDeadEndFilling() {
+    return this.filling;
+  }
+
+  /**********
+   * @Param two cell ids to keep open
+   * @Return this maze with every dead end other than the two cells
+   * filled in, reusing the last filling made for the same pair
+   **/
+  public synchronized DeadEndFilling getDeadEndFilling(int start, int end) {
+    if (this.deadEnds == null || !this.deadEnds.isFor(start, end)) {
+      this.deadEnds = new DeadEndFilling(this.grid, start, end);
+    }
+    return this.deadEnds;
+  }
+
+  /**********
+   * helper function for the label solvers
+   * runs solver between two labelled vertices on the grid, on the
+   * contracted graph when corridor compression is on, or on the
+   * filled grid when dead-end filling is on
+   * @Param two vertices' labels, the solver
+   * @Return a list of labels of vertices along the found path
+   **/
+  private List<String> solve(String b, String e, GraphSearch.Solver solver) {
+    int start = getCellId(b);
+    int end = getCellId(e);
+    if (!isConnected(start, end)) {
+      return new ArrayList<String>();
+    }
+    if (!this.contracted) {
+      SearchGraph g = this.filling ? getDeadEndFilling(start, end) : this.grid;
+      return pathLabels(solver.search(g, start, end));
+    }
+    CorridorGraph.Query q = getCorridorGraph().query(start, end);
+    return pathLabels(q.expand(solver.search(q, q.getStart(), q.getEnd())));
+  }
+
   /**********
    * This method finds a path from a start vertex to an end vertex
    * following DFS algorithm
@@ -170,51 +415,19 @@ public class MazeGraph {
    * @Return a list of labels of vertices along the found path
    **/
   public List<String> solveMazeDepthFirst(String b, String e) {
-    // use getVertInd to determine the position of start and end vertices
-    int startRow = getVertInd(b)[0];
-    int startCol = getVertInd(b)[1];
-    int endRow = getVertInd(e)[0];
-    int endCol = getVertInd(e)[1];
-    Vertex<String> start = this.graph.getVertex(labArray[startRow][startCol]);
-    Vertex<String> end = this.graph.getVertex(labArray[endRow][endCol]);
-    Vertex<String> currentVert;
-    LinkedList<Vertex<String>> S = new LinkedList<Vertex<String>>();
-    LinkedList<Vertex<String>> VL = new LinkedList<Vertex<String>>();
-    ArrayList<String> VLString = new ArrayList<String>();
-    // empty start vertex's path list so that when running search multiple
-    // times it doesn't show previous searched paths.
-    ArrayList<Vertex<String>> startPath = new ArrayList<Vertex<String>>();
-    startPath.add(start);
-    start.setPath(startPath);
-    S.add(start);
-    while (S.size() != 0) {
-      currentVert = S.removeLast();
-      if (!VL.contains(currentVert)) {
-        VL.add(currentVert);
-        if (currentVert.getLabel().equals(end.getLabel())) {
-          // copy labels of vertices along the found path to a 
-          // String list
-          for (int i = 0; i < currentVert.getPath().size(); i++) {
-            VLString.add(i, currentVert.getPath().get(i).getLabel());
-          }
-          break;
-        }
-        else {
-          List<Vertex<String>> pathList = currentVert.getPath();
-          for (int i = 0; i < currentVert.getNeighbors().size(); i++) {
-            Vertex<String> n = currentVert.getNeighbors().get(i);
-            // resetting n's pathlist avoids overriding visited vertices
-            n.setPath(new ArrayList<Vertex<String>>());
-            for (int j = 0; j < pathList.size(); j++) {
-              n.getPath().add(n.getPath().size(), pathList.get(j));
-            }
-            n.getPath().add(n.getPath().size(), n);
-            S.add(n);
-          }
-        }
-      }
+    return solve(b, e, (g, s, t) -> GraphSearch.depthFirst(g, s, t, new SearchContext(g.getNumNodes())));
+  }
+
+  /**********
+   * DFS between two cells, keeping all search state in ctx
+   * @Param start and end cell ids, context to search with
+   * @Return cell ids along the found path, empty if there is none
+   **/
+  public int[] depthFirst(int start, int end, SearchContext ctx) {
+    if (!isConnected(start, end)) {
+      return new int[0];
     }
-    return VLString;
+    return GraphSearch.depthFirst(this.grid, start, end, ctx);
   }
   
   /**********
@@ -224,49 +437,20 @@ public class MazeGraph {
    * @Return a list of labels of vertices along the found path
    **/
   public List<String> solveMazeBreadthFirst(String b, String e) {
-    // find the start and end vertices
-    int startRow = getVertInd(b)[0];
-    int startCol = getVertInd(b)[1];
-    int endRow = getVertInd(e)[0];
-    int endCol = getVertInd(e)[1];
-    Vertex<String> start = this.graph.getVertex(labArray[startRow][startCol]);
-    Vertex<String> end = this.graph.getVertex(labArray[endRow][endCol]);
-    Vertex<String> currentVert;
-    LinkedList<Vertex<String>> Q = new LinkedList<Vertex<String>>();
-    LinkedList<Vertex<String>> VL = new LinkedList<Vertex<String>>();
-    ArrayList<String> VLString = new ArrayList<String>();
-    Q.addLast(start);
-    // empty start vertex's path list so that when running search multiple
-    // times it doesn't show previous searched paths.
-    ArrayList<Vertex<String>> startPath = new ArrayList<Vertex<String>>();
-    startPath.add(start);
-    start.setPath(startPath);
-    while (Q.size() != 0) {
-      currentVert = Q.removeFirst();
-      VL.add(currentVert);
-      if (currentVert.getLabel().equals(end.getLabel())) {
-        for (int i = 0; i < currentVert.getPath().size(); i++) {
-          VLString.add(i, currentVert.getPath().get(i).getLabel());
-        }
-        break;
-      }
-      else {
-        List<Vertex<String>> pathList = currentVert.getPath();
-        for (int i = 0; i < currentVert.getNeighbors().size(); i++) {
-          Vertex<String> n = currentVert.getNeighbors().get(i);
-          if (!Q.contains(n) && !VL.contains(n)) {
-            // resetting n's pathlist avoids overriding visited vertices
-            n.setPath(new ArrayList<Vertex<String>>());
-            for (int j = 0; j < pathList.size(); j++) {
-              n.getPath().add(n.getPath().size(), pathList.get(j));
-            }
-            n.getPath().add(n.getPath().size(), n);
-            Q.addLast(n);
-          }
-        }    
-      }
-    }  
-    return VLString;
+    return solve(b, e, (g, s, t) -> GraphSearch.breadthFirst(g, s, t, new SearchContext(g.getNumNodes())));
+  }
+
+  /**********
+   * BFS between two cells, keeping all search state in ctx
+   * @Param start and end cell ids, context to search with
+   * @Return cell ids along a path with the fewest steps, empty if
+   * there is none
+   **/
+  public int[] breadthFirst(int start, int end, SearchContext ctx) {
+    if (!isConnected(start, end)) {
+      return new int[0];
+    }
+    return GraphSearch.breadthFirst(this.grid, start, end, ctx);
   }
   
   /**********
@@ -276,51 +460,438 @@ public class MazeGraph {
    * @Return a list of labels of vertices along the found path
    **/
   public List<String> ShortestPathSearch(String b, String e) {
-    LinkedList<Vertex<String>> VL = new LinkedList<Vertex<String>>();
-    ArrayList<String> VLString = new ArrayList<String>();
-    VertexComparator c = new VertexComparator();
-    PriorityQueue<Vertex<String>> PQ = new PriorityQueue<Vertex<String>>(c);
-    // find start and end vertices
-    int startRow = getVertInd(b)[0];
-    int startCol = getVertInd(b)[1];
-    int endRow = getVertInd(e)[0];
-    int endCol = getVertInd(e)[1];
-    Vertex<String> start = this.graph.getVertex(labArray[startRow][startCol]);
-    Vertex<String> end = this.graph.getVertex(labArray[endRow][endCol]);
-    Vertex<String> currentVert;
-    PQ.add(start);
-    ArrayList<Vertex<String>> startPath = new ArrayList<Vertex<String>>();
-    startPath.add(start);
-    start.setPath(startPath);
-    start.setDistance(0);
-    while (PQ.size() != 0) {
-      currentVert = PQ.poll();
-      if (currentVert.getLabel().equals(end.getLabel())) {
-        // copy vertices labels to the list to be returned
-        for (int i = 0; i < currentVert.getPath().size(); i++) {
-          VLString.add(i, currentVert.getPath().get(i).getLabel());
-        }
-        break;
-      } else {
-        List<Vertex<String>> pathList = currentVert.getPath();
-        for (int i = 0; i < currentVert.getNeighbors().size(); i++) {
-          Vertex<String> n = currentVert.getNeighbors().get(i);
-          if (!PQ.contains(n) && !VL.contains(n)) {
-            // compute the edge weight between n and currentVert
-            double edgeWeight = currentVert.getWeight() + n.getWeight();
-            n.setDistance(currentVert.getDistance() + edgeWeight);
-            // resetting n's pathlist avoids overriding visited vertices
-            n.setPath(new ArrayList<Vertex<String>>());
-            for (int j = 0; j < pathList.size(); j++) {
-              n.getPath().add(n.getPath().size(), pathList.get(j));
-            }
-            n.getPath().add(n.getPath().size(), n);
-            PQ.add(n);   
-          }
-        }
+    return solve(b, e, (g, s, t) -> GraphSearch.dijkstra(g, s, t, new SearchContext(g.getNumNodes())));
+  }
+
+  /**********
+   * Dijkstra search between two cells, keeping all search state in ctx
+   * @Param start and end cell ids, context to search with
+   * @Return cell ids along the found path, empty if there is none
+   **/
+  public int[] dijkstra(int start, int end, SearchContext ctx) {
+    if (!isConnected(start, end)) {
+      return new int[0];
+    }
+    return GraphSearch.dijkstra(this.grid, start, end, ctx);
+  }
+
+  /**********
+   * This method finds a path from a start vertex to an end vertex
+   * following Dial's algorithm, Dijkstra with a bucket queue
+   * @Param two vertices' labels
+   * @Return a list of labels of vertices along the found path
+   **/
+  public List<String> solveMazeDial(String b, String e) {
+    return solve(b, e, (g, s, t) -> GraphSearch.dial(g, s, t, new SearchContext(g.getNumNodes())));
+  }
+
+  /**********
+   * Dial's algorithm between two cells, keeping all search state in
+   * ctx, see GraphSearch.dial
+   * @Param start and end cell ids, context to search with
+   * @Return cell ids along the found path, empty if there is none
+   **/
+  public int[] dial(int start, int end, SearchContext ctx) {
+    if (!isConnected(start, end)) {
+      return new int[0];
+    }
+    return GraphSearch.dial(this.grid, start, end, ctx);
+  }
+
+  /**********
+   * This method finds a path from a start vertex to an end vertex
+   * following the A* algorithm
+   * @Param two vertices' labels
+   * @Return a list of labels of vertices along the found path
+   **/
+  public List<String> solveMazeAStar(String b, String e) {
+    return solve(b, e, (g, s, t) -> GraphSearch.aStar(g, s, t, new SearchContext(g.getNumNodes())));
+  }
+
+  /**********
+   * A* search between two cells, keeping all search state in ctx.
+   * The heuristic is the Manhattan distance to end times the cheapest
+   * possible edge, see GraphSearch.aStar
+   * @Param start and end cell ids, context to search with
+   * @Return cell ids along the found path, empty if there is none
+   **/
+  public int[] aStar(int start, int end, SearchContext ctx) {
+    if (!isConnected(start, end)) {
+      return new int[0];
+    }
+    return GraphSearch.aStar(this.grid, start, end, ctx);
+  }
+
+  /**********
+   * This method finds a path from a start vertex to an end vertex
+   * following BFS from both ends at once
+   * @Param two vertices' labels
+   * @Return a list of labels of vertices along the found path
+   **/
+  public List<String> solveMazeBidirectionalBreadthFirst(String b, String e) {
+    return solve(b, e, (g, s, t) -> GraphSearch.bidirectionalBreadthFirst(
+        g, s, t, new SearchContext(g.getNumNodes()), new SearchContext(g.getNumNodes())));
+  }
+
+  /**********
+   * Bidirectional BFS between two cells, see
+   * GraphSearch.bidirectionalBreadthFirst
+   * @Param start and end cell ids, contexts for the forward and
+   * backward searches
+   * @Return cell ids along the found path, empty if there is none
+   **/
+  public int[] bidirectionalBreadthFirst(int start, int end, SearchContext fwd,
+                                         SearchContext bwd) {
+    if (!isConnected(start, end)) {
+      return new int[0];
+    }
+    return GraphSearch.bidirectionalBreadthFirst(this.grid, start, end, fwd, bwd);
+  }
+
+  /**********
+   * This method finds a path from a start vertex to an end vertex
+   * following Dijkstra's algorithm from both ends at once
+   * @Param two vertices' labels
+   * @Return a list of labels of vertices along the found path
+   **/
+  public List<String> solveMazeBidirectionalDijkstra(String b, String e) {
+    return solve(b, e, (g, s, t) -> GraphSearch.bidirectionalDijkstra(
+        g, s, t, new SearchContext(g.getNumNodes()), new SearchContext(g.getNumNodes())));
+  }
+
+  /**********
+   * Bidirectional Dijkstra between two cells, see
+   * GraphSearch.bidirectionalDijkstra
+   * @Param start and end cell ids, contexts for the forward and
+   * backward searches
+   * @Return cell ids along the found path, empty if there is none
+   **/
+  public int[] bidirectionalDijkstra(int start, int end, SearchContext fwd,
+                                     SearchContext bwd) {
+    if (!isConnected(start, end)) {
+      return new int[0];
+    }
+    return GraphSearch.bidirectionalDijkstra(this.grid, start, end, fwd, bwd);
+  }
+
+  /**********
+   * This method finds a path from a start vertex to an end vertex
+   * following a bit-parallel BFS wavefront. The wavefront works on
+   * grid rows, so with corridor compression or dead-end filling on
+   * this is plain BFS on the graph those search
+   * @Param two vertices' labels
+   * @Return a list of labels of vertices along the found path
+   **/
+  public List<String> solveMazeWavefront(String b, String e) {
+    if (this.contracted || this.filling) {
+      return solveMazeBreadthFirst(b, e);
+    }
+    return pathLabels(wavefront(getCellId(b), getCellId(e), newSearchContext()));
+  }
+
+  /**********
+   * BFS between two cells that advances 64 cells per word operation,
+   * see WavefrontSearch
+   * @Param start and end cell ids, context to search with
+   * @Return cell ids along a path with the fewest steps, empty if
+   * there is none
+   **/
+  public int[] wavefront(int start, int end, SearchContext ctx) {
+    if (!isConnected(start, end)) {
+      return new int[0];
+    }
+    return getWavefront().search(start, end, ctx);
+  }
+
+  /**********
+   * helper function for wavefront
+   * @Return the row bitmaps of this maze, packing them on first use
+   **/
+  private synchronized WavefrontSearch getWavefront() {
+    if (this.wavefront == null) {
+      this.wavefront = new WavefrontSearch(this.grid);
+    }
+    return this.wavefront;
+  }
+
+  /**********
+   * This method finds a path from a start vertex to an end vertex
+   * following hierarchical A* over clusters of the grid
+   * @Param two vertices' labels
+   * @Return a list of labels of vertices along the found path
+   **/
+  public List<String> solveMazeHierarchical(String b, String e) {
+    return pathLabels(hierarchical(getCellId(b), getCellId(e), null));
+  }
+
+  /**********
+   * Hierarchical A* between two cells, see HierarchicalGraph. The
+   * abstract search is much smaller than the grid, and the path is as
+   * short as any that crosses cluster borders only at entrances
+   * @Param start and end cell ids, context for the abstract search,
+   * replaced by a new one if null or too small
+   * @Return cell ids along the found path, empty if there is none
+   **/
+  public int[] hierarchical(int start, int end, SearchContext ctx) {
+    if (!isConnected(start, end)) {
+      return new int[0];
+    }
+    HierarchicalGraph.Query q = getHierarchy().query(start, end);
+    if (ctx == null || ctx.getNumNodes() < q.getNumNodes()) {
+      ctx = new SearchContext(q.getNumNodes());
+    }
+    return q.expand(GraphSearch.aStar(q, q.getStart(), q.getEnd(), ctx));
+  }
+
+  /**********
+   * @Return the clusters and entrances of this maze, building them on
+   * first use
+   **/
+  public synchronized HierarchicalGraph getHierarchy() {
+    if (this.hierarchy == null) {
+      this.hierarchy = new HierarchicalGraph(this.grid);
+    }
+    return this.hierarchy;
+  }
+
+  /**********
+   * This method finds a path from a start vertex to an end vertex
+   * following LPA*. The search is kept for the last pair of vertices,
+   * so after edits a query between the same pair repairs the last
+   * result instead of searching again from scratch
+   * @Param two vertices' labels
+   * @Return a list of labels of vertices along the found path
+   **/
+  public List<String> solveMazeIncremental(String b, String e) {
+    int start = getCellId(b);
+    int end = getCellId(e);
+    if (!isConnected(start, end)) {
+      return new ArrayList<String>();
+    }
+    IncrementalSearch p;
+    synchronized (this) {
+      p = this.planner;
+      if (p == null || p.getStart() != start || p.getEnd() != end) {
+        p = newIncrementalSearch(start, end);
+        this.planner = p;
       }
     }
-    return VLString;
+    return pathLabels(p.search());
+  }
+
+  /**********
+   * Starts an incremental search between two cells that setWeight and
+   * toggleWall keep up to date, for as long as the caller holds it
+   * @Param start and end cell ids
+   * @Return the search, see IncrementalSearch
+   **/
+  public synchronized IncrementalSearch newIncrementalSearch(int start, int end) {
+    IncrementalSearch p = new IncrementalSearch(this.grid, start, end);
+    this.planners.add(new WeakReference<IncrementalSearch>(p));
+    return p;
+  }
+
+  /**********
+   * This method finds a path from a start vertex to an end vertex
+   * following A* with landmark lower bounds (ALT)
+   * @Param two vertices' labels
+   * @Return a list of labels of vertices along the found path
+   **/
+  public List<String> solveMazeLandmarks(String b, String e) {
+    return pathLabels(landmarkAStar(getCellId(b), getCellId(e), newSearchContext()));
+  }
+
+  /**********
+   * A* search between two cells bounded by landmark distances, see
+   * Landmarks. Finds as short a path as Dijkstra while settling far
+   * fewer cells on long routes
+   * @Param start and end cell ids, context to search with
+   * @Return cell ids along the found path, empty if there is none
+   **/
+  public int[] landmarkAStar(int start, int end, SearchContext ctx) {
+    if (!isConnected(start, end)) {
+      return new int[0];
+    }
+    return GraphSearch.aStar(getLandmarks(), start, end, ctx);
+  }
+
+  /**********
+   * @Return the landmark distances of this maze. On first use they are
+   * read from the landmark file next to the maze, or computed and
+   * saved there when it is missing or out of date. Once cells were
+   * edited they are computed without the file
+   **/
+  public synchronized Landmarks getLandmarks() {
+    if (this.landmarks != null) {
+      return this.landmarks;
+    }
+    if (this.edited) {
+      this.landmarks = Landmarks.compute(this.grid, Landmarks.DEFAULT_LANDMARKS);
+      return this.landmarks;
+    }
+    try {
+      long key = MazeSnapshot.keyOf(this.fname);
+      this.landmarks = Landmarks.load(this.fname, key, this.weighted, this.grid);
+      if (this.landmarks == null) {
+        this.landmarks = Landmarks.compute(this.grid, Landmarks.DEFAULT_LANDMARKS);
+        this.landmarks.save(this.fname, key, this.weighted);
+      }
+    } catch (IOException e) {
+      System.err.println("Warning, cannot read or save landmarks: " + e.getMessage());
+      if (this.landmarks == null) {
+        this.landmarks = Landmarks.compute(this.grid, Landmarks.DEFAULT_LANDMARKS);
+      }
+    }
+    return this.landmarks;
+  }
+
+  /**********
+   * This method finds a shortest path from a start vertex to an end
+   * vertex with the distance oracle, or with Dijkstra search when the
+   * maze has too many cycles for one
+   * @Param two vertices' labels
+   * @Return a list of labels of vertices along the found path
+   **/
+  public List<String> solveMazeOracle(String b, String e) {
+    DistanceOracle o = getDistanceOracle();
+    if (o == null) {
+      return ShortestPathSearch(b, e);
+    }
+    return pathLabels(o.path(getCellId(b), getCellId(e)));
+  }
+
+  /**********
+   * @Param start and end cell ids
+   * @Return the cost of a shortest path between two cells, answered by
+   * the distance oracle when the maze has one, Long.MAX_VALUE if there
+   * is no path
+   **/
+  public long shortestDistance(int start, int end) {
+    if (!isConnected(start, end)) {
+      return Long.MAX_VALUE;
+    }
+    DistanceOracle o = getDistanceOracle();
+    if (o != null) {
+      return o.distance(start, end);
+    }
+    int[] path = dijkstra(start, end, newSearchContext());
+    if (path.length == 0) {
+      return Long.MAX_VALUE;
+    }
+    long d = 0;
+    for (int i = 1; i < path.length; i++) {
+      d += this.grid.getEdgeCost(path[i - 1], path[i]);
+    }
+    return d;
+  }
+
+  /**********
+   * @Return the distance oracle of this maze, building it on first
+   * use, or null if the maze has more cycles than the oracle accepts,
+   * see DistanceOracle
+   **/
+  public synchronized DistanceOracle getDistanceOracle() {
+    if (!this.oracleBuilt) {
+      this.oracle = DistanceOracle.build(this.grid, DistanceOracle.DEFAULT_MAX_PORTALS);
+      this.oracleBuilt = true;
+    }
+    return this.oracle;
+  }
+
+  /**********
+   * This method finds a path from a start vertex to an end vertex
+   * following BFS, expanding large levels on the common fork-join pool
+   * @Param two vertices' labels
+   * @Return a list of labels of vertices along the found path
+   **/
+  public List<String> solveMazeParallelBreadthFirst(String b, String e) {
+    return solve(b, e, (g, s, t) ->
+        new ParallelBreadthFirst(g, ForkJoinPool.commonPool()).search(s, t));
+  }
+
+  /**********
+   * Level-synchronous parallel BFS between two cells, see
+   * ParallelBreadthFirst
+   * @Param start and end cell ids
+   * @Return cell ids along a path with the fewest steps, empty if
+   * there is none
+   **/
+  public int[] parallelBreadthFirst(int start, int end) {
+    if (!isConnected(start, end)) {
+      return new int[0];
+    }
+    return new ParallelBreadthFirst(this.grid, ForkJoinPool.commonPool()).search(start, end);
+  }
+
+  /**********
+   * This method finds a path from a start vertex to an end vertex
+   * following parallel delta-stepping on the common fork-join pool
+   * @Param two vertices' labels
+   * @Return a list of labels of vertices along the found path
+   **/
+  public List<String> solveMazeDeltaStepping(String b, String e) {
+    return solve(b, e, (g, s, t) ->
+        new DeltaStepping(g, ForkJoinPool.commonPool()).search(s, t));
+  }
+
+  /**********
+   * Parallel shortest path between two cells, see DeltaStepping
+   * @Param start and end cell ids
+   * @Return cell ids along the found path, empty if there is none
+   **/
+  public int[] deltaStepping(int start, int end) {
+    if (!isConnected(start, end)) {
+      return new int[0];
+    }
+    return new DeltaStepping(this.grid, ForkJoinPool.commonPool()).search(start, end);
+  }
+
+  /**********
+   * Parallel one-to-all shortest distances, see DeltaStepping
+   * @Param source cell id
+   * @Return the distance to every cell, Long.MAX_VALUE for walls and
+   * unreachable cells
+   **/
+  public long[] shortestDistancesFrom(int source) {
+    return new DeltaStepping(this.grid, ForkJoinPool.commonPool()).distances(source);
+  }
+
+  /**************
+   * Lists every non-wall vertex with its weight and neighbors
+   *************/
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    try {
+      writeTo(sb);
+    } catch (IOException e) {
+      // a StringBuilder never throws
+    }
+    return sb.toString();
+  }
+
+  /**************
+   * Writes every non-wall vertex with its weight and neighbors, the
+   * same text as toString, one vertex at a time
+   * @param where to write the graph
+   *************/
+  public void writeTo(Appendable out) throws IOException {
+    StringBuilder line = new StringBuilder();
+    int[] nbrs = new int[4];
+    for (int v = 0; v < this.grid.getNumCells(); v++) {
+      if (!this.grid.isOpen(v)) {
+        continue;
+      }
+      line.setLength(0);
+      line.append('\n');
+      this.labelIndex.appendLabel(line, v);
+      line.append(' ').append(this.grid.getWeight(v)).append(".0 >>> ");
+      int count = this.grid.getNeighbors(v, nbrs);
+      for (int i = 0; i < count; i++) {
+        line.append(' ');
+        this.labelIndex.appendLabel(line, nbrs[i]);
+      }
+      out.append(line);
+    }
   }
 
   /**********
@@ -338,7 +909,13 @@ public class MazeGraph {
     while (quit.equals("quit") == false) {
       System.out.print("======================================" + "\n" +
                        "type quit to quit, or" + "\n" + 
-                       "type BFS, DFS, or Dijkstra for a respective solution: ");
+                       "type BFS, DFS, Dijkstra, Dial, AStar," + "\n" +
+                       "BiBFS, BiDijkstra, Wavefront, ParallelBFS, DeltaStepping," + "\n" +
+                       "HPA, ALT, Oracle, or LPA" + "\n" +
+                       "for a respective solution, Dump to print the graph," + "\n" +
+                       "Edit to change a vertex's weight (0 for a wall)," + "\n" +
+                       "Corridors to toggle corridor compression," + "\n" +
+                       "or DeadEnds to toggle dead-end filling: ");
       String decision = bar.next();
       if (decision.equals("BFS")) {
         Scanner bee = new Scanner(System.in);
@@ -367,6 +944,126 @@ public class MazeGraph {
         for (int i = 0; i < AL.size(); i++) {
           System.out.println(AL.get(i));
         }
+      } else if (decision.equals("Dial")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'startVertex endVertex': ");
+        String startV = bee.next();
+        String endV = bee.next();      
+        List<String> AL = g.solveMazeDial(startV, endV);
+        for (int i = 0; i < AL.size(); i++) {
+          System.out.println(AL.get(i));
+        }
+      } else if (decision.equals("AStar")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'startVertex endVertex': ");
+        String startV = bee.next();
+        String endV = bee.next();      
+        List<String> AL = g.solveMazeAStar(startV, endV);
+        for (int i = 0; i < AL.size(); i++) {
+          System.out.println(AL.get(i));
+        }
+      } else if (decision.equals("BiBFS")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'startVertex endVertex': ");
+        String startV = bee.next();
+        String endV = bee.next();      
+        List<String> AL = g.solveMazeBidirectionalBreadthFirst(startV, endV);
+        for (int i = 0; i < AL.size(); i++) {
+          System.out.println(AL.get(i));
+        }
+      } else if (decision.equals("BiDijkstra")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'startVertex endVertex': ");
+        String startV = bee.next();
+        String endV = bee.next();      
+        List<String> AL = g.solveMazeBidirectionalDijkstra(startV, endV);
+        for (int i = 0; i < AL.size(); i++) {
+          System.out.println(AL.get(i));
+        }
+      } else if (decision.equals("Wavefront")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'startVertex endVertex': ");
+        String startV = bee.next();
+        String endV = bee.next();      
+        List<String> AL = g.solveMazeWavefront(startV, endV);
+        for (int i = 0; i < AL.size(); i++) {
+          System.out.println(AL.get(i));
+        }
+      } else if (decision.equals("ParallelBFS")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'startVertex endVertex': ");
+        String startV = bee.next();
+        String endV = bee.next();      
+        List<String> AL = g.solveMazeParallelBreadthFirst(startV, endV);
+        for (int i = 0; i < AL.size(); i++) {
+          System.out.println(AL.get(i));
+        }
+      } else if (decision.equals("DeltaStepping")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'startVertex endVertex': ");
+        String startV = bee.next();
+        String endV = bee.next();      
+        List<String> AL = g.solveMazeDeltaStepping(startV, endV);
+        for (int i = 0; i < AL.size(); i++) {
+          System.out.println(AL.get(i));
+        }
+      } else if (decision.equals("HPA")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'startVertex endVertex': ");
+        String startV = bee.next();
+        String endV = bee.next();      
+        List<String> AL = g.solveMazeHierarchical(startV, endV);
+        for (int i = 0; i < AL.size(); i++) {
+          System.out.println(AL.get(i));
+        }
+      } else if (decision.equals("ALT")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'startVertex endVertex': ");
+        String startV = bee.next();
+        String endV = bee.next();      
+        List<String> AL = g.solveMazeLandmarks(startV, endV);
+        for (int i = 0; i < AL.size(); i++) {
+          System.out.println(AL.get(i));
+        }
+      } else if (decision.equals("Oracle")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'startVertex endVertex': ");
+        String startV = bee.next();
+        String endV = bee.next();      
+        List<String> AL = g.solveMazeOracle(startV, endV);
+        for (int i = 0; i < AL.size(); i++) {
+          System.out.println(AL.get(i));
+        }
+      } else if (decision.equals("LPA")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'startVertex endVertex': ");
+        String startV = bee.next();
+        String endV = bee.next();      
+        List<String> AL = g.solveMazeIncremental(startV, endV);
+        for (int i = 0; i < AL.size(); i++) {
+          System.out.println(AL.get(i));
+        }
+      } else if (decision.equals("Edit")) {
+        Scanner bee = new Scanner(System.in);
+        System.out.print("enter 'vertex weight': ");
+        String v = bee.next();
+        int w = bee.nextInt();
+        g.setWeight(v, w);
+      } else if (decision.equals("Corridors")) {
+        g.setCorridorCompression(!g.isCorridorCompression());
+        CorridorGraph c = g.getCorridorGraph();
+        System.out.println("corridor compression " + (g.isCorridorCompression() ? "on" : "off") +
+                           ": " + c.getNumNodes() + " junctions, " + c.getNumEdges() + " corridors");
+      } else if (decision.equals("DeadEnds")) {
+        g.setDeadEndFilling(!g.isDeadEndFilling());
+        System.out.println("dead-end filling " + (g.isDeadEndFilling() ? "on" : "off"));
+      } else if (decision.equals("Dump")) {
+        try {
+          g.writeTo(System.out);
+          System.out.println();
+        } catch (IOException e) {
+          System.err.println("Error: " + e.getMessage());
+        }
       } else if (decision.equals("quit")) {
         System.exit(0);
       } else {
@@ -0,0 +1,225 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Single-pass reader for maze text files. The file is read through
+ * a FileChannel into one reused buffer, and every "label+weight"
+ * token is split into its letters and digits by hand, with the
+ * weight written straight into a flat row-major array.
+ *
+ * Labels that are the tags Maze generates are only checked, never
+ * stored; the LabelIndex decodes them on demand. Label strings are
+ * kept only for files that use other labels.
+ *********************/
+
+public class MazeReader {
+
+  // bytes read from the file at a time
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private FileChannel channel;
+  private ByteBuffer buf;
+  // bytes of the token being read
+  private byte[] token = new byte[16];
+  private int tokenLength;
+  // byte that ended the last token, -1 at the end of the file
+  private int tokenEnd;
+
+  // width, or height of the maze
+  private int size;
+  // weight of every cell in row-major order, 0 for walls
+  private int[] weights;
+  private LabelIndex labelIndex;
+
+  /**********
+   * reads a maze file
+   * @param file name, whether to keep cell weights (true) or reduce
+   *        every open cell to weight 1 (false)
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if the file is not a maze file
+   **/
+  public MazeReader(String fname, boolean weighted) throws IOException {
+    this.channel = FileChannel.open(Paths.get(fname), StandardOpenOption.READ);
+    try {
+      this.buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+      this.buf.flip();
+      read(weighted);
+    } finally {
+      this.channel.close();
+    }
+  }
+
+  /**********
+   * @return width, or height of the maze
+   **/
+  public int getSize() {
+    return this.size;
+  }
+
+  /**********
+   * @return weight of every cell in row-major order, 0 for walls
+   **/
+  public int[] getWeights() {
+    return this.weights;
+  }
+
+  /**********
+   * @return the index from labels to cell ids
+   **/
+  public LabelIndex getLabelIndex() {
+    return this.labelIndex;
+  }
+
+  /**********
+   * helper function for the constructor
+   * reads the header line, then every cell token
+   **/
+  private void read(boolean weighted) throws IOException {
+    // the first number in the file is the size; the rest of the
+    // header line repeats it
+    if (!nextToken()) {
+      throw new IllegalArgumentException("Malformed maze file: missing size");
+    }
+    this.size = parseNumber(0, this.tokenLength);
+    if (this.tokenEnd != '\n') {
+      skipLine();
+    }
+    long numCells = (long) this.size * this.size;
+    if (numCells > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Maze of size " + this.size + " is too large");
+    }
+    this.weights = new int[(int) numCells];
+    int width = LabelIndex.tagWidth(numCells);
+    // labels, only filled in once a label is not a generated tag
+    String[] labels = null;
+    for (int id = 0; id < numCells; id++) {
+      if (!nextToken()) {
+        throw new IllegalArgumentException("Malformed maze file: expected " + numCells +
+                                           " cells, found " + id);
+      }
+      // split the token into its label letters and trailing digits
+      int digits = this.tokenLength;
+      while (digits > 0 && this.token[digits - 1] >= '0' && this.token[digits - 1] <= '9') {
+        digits--;
+      }
+      if (digits == this.tokenLength) {
+        throw new IllegalArgumentException("Malformed maze file: no weight in token " +
+                                           new String(this.token, 0, this.tokenLength,
+                                                      StandardCharsets.UTF_8));
+      }
+      int weight = parseNumber(digits, this.tokenLength);
+      this.weights[id] = (weighted || weight == 0) ? weight : 1;
+      if (labels == null && !isTag(digits, id, width)) {
+        labels = new String[(int) numCells];
+        for (int j = 0; j < id; j++) {
+          labels[j] = LabelIndex.tagOf(j, width);
+        }
+      }
+      if (labels != null) {
+        labels[id] = new String(this.token, 0, digits, StandardCharsets.UTF_8);
+      }
+    }
+    if (labels == null) {
+      this.labelIndex = new LabelIndex((int) numCells);
+    } else {
+      this.labelIndex = new LabelIndex(labels);
+    }
+  }
+
+  /**********
+   * helper function for read
+   * @return whether the first length bytes of the token spell the
+   *         generated tag of the given cell
+   **/
+  private boolean isTag(int length, int id, int width) {
+    if (length != width) {
+      return false;
+    }
+    for (int i = width - 1; i > 0; i--) {
+      if (this.token[i] != 'a' + id % 26) {
+        return false;
+      }
+      id /= 26;
+    }
+    return id < 26 && this.token[0] == 'a' + id;
+  }
+
+  /**********
+   * helper function for read
+   * @return the decimal number in token[from .. to)
+   **/
+  private int parseNumber(int from, int to) {
+    long n = 0;
+    for (int i = from; i < to; i++) {
+      byte b = this.token[i];
+      if (b < '0' || b > '9') {
+        throw new IllegalArgumentException("Malformed maze file: bad number " +
+                                           new String(this.token, from, to - from,
+                                                      StandardCharsets.UTF_8));
+      }
+      n = n * 10 + (b - '0');
+      if (n > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Malformed maze file: number too large");
+      }
+    }
+    return (int) n;
+  }
+
+  /**********
+   * helper function for read
+   * copies the next whitespace-separated token into token
+   * @return false if the file has no more tokens
+   **/
+  private boolean nextToken() throws IOException {
+    int b = nextByte();
+    while (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+      b = nextByte();
+    }
+    if (b == -1) {
+      return false;
+    }
+    this.tokenLength = 0;
+    while (b != -1 && b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+      if (this.tokenLength == this.token.length) {
+        this.token = java.util.Arrays.copyOf(this.token, 2 * this.tokenLength);
+      }
+      this.token[this.tokenLength++] = (byte) b;
+      b = nextByte();
+    }
+    this.tokenEnd = b;
+    return true;
+  }
+
+  /**********
+   * helper function for read
+   * skips to the start of the next line
+   **/
+  private void skipLine() throws IOException {
+    int b = nextByte();
+    while (b != -1 && b != '\n') {
+      b = nextByte();
+    }
+  }
+
+  /**********
+   * helper function for nextToken and skipLine
+   * @return the next byte of the file, -1 at its end
+   **/
+  private int nextByte() throws IOException {
+    if (!this.buf.hasRemaining()) {
+      this.buf.clear();
+      int n = this.channel.read(this.buf);
+      this.buf.flip();
+      if (n <= 0) {
+        return -1;
+      }
+    }
+    return this.buf.get() & 0xff;
+  }
+}
@@ -0,0 +1,255 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32C;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Snapshots of compiled maze text files. Once a text file has been
+ * parsed, its cell weights and labels are saved next to it
+ * (maze.txt -> maze.txt.snap); later loads map the snapshot and read
+ * the weights in place instead of parsing the text again.
+ *
+ * A snapshot is keyed by the length and CRC-32C of the text file it
+ * was built from, so an edited file no longer matches and is parsed
+ * again, which replaces the snapshot. The file is big-endian:
+ *
+ *   0  magic "MAZS"           4  format version
+ *   8  key of the text file  16  width of the maze
+ *  20  bits per weight (4 or 32)
+ *  24  label mode: 0 for generated tags, 1 for stored labels
+ *  28  weights, nibble-packed as in MazeBinaryFormat or as ints
+ *      then, for stored labels, every label as a length and UTF-8 bytes
+ *********************/
+
+public class MazeSnapshot {
+
+  private static final byte[] MAGIC = {'M', 'A', 'Z', 'S'};
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 28;
+  public static final String SUFFIX = ".snap";
+
+  private GridGraph grid;
+  private LabelIndex labelIndex;
+
+  private MazeSnapshot(GridGraph grid, LabelIndex labelIndex) {
+    this.grid = grid;
+    this.labelIndex = labelIndex;
+  }
+
+  /**********
+   * @return the graph, reading its weights from the mapped snapshot
+   **/
+  public GridGraph getGrid() {
+    return this.grid;
+  }
+
+  /**********
+   * @return the index from labels to cell ids
+   **/
+  public LabelIndex getLabelIndex() {
+    return this.labelIndex;
+  }
+
+  /**********
+   * @param maze text file name
+   * @return the name of its snapshot
+   **/
+  public static String snapshotName(String fname) {
+    return fname + SUFFIX;
+  }
+
+  /**********
+   * Reads a file once to key its snapshot
+   * @param maze text file name
+   * @return the file's CRC-32C in the low 32 bits, its length in the
+   *         high 32
+   **/
+  public static long keyOf(String fname) throws IOException {
+    FileChannel ch = FileChannel.open(Paths.get(fname), StandardOpenOption.READ);
+    try {
+      CRC32C crc = new CRC32C();
+      ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+      long length = 0;
+      int n;
+      while ((n = ch.read(buf)) >= 0) {
+        buf.flip();
+        crc.update(buf);
+        buf.clear();
+        length += n;
+      }
+      return (length << 32) | crc.getValue();
+    } finally {
+      ch.close();
+    }
+  }
+
+  /**********
+   * Maps the snapshot of a text file
+   * @param maze text file name, its key from keyOf
+   * @return the snapshot, or null if there is none, it was built
+   *         from another version of the file or by another format, or
+   *         it is cut short or damaged
+   **/
+  public static MazeSnapshot load(String fname, long key) throws IOException {
+    FileChannel ch;
+    try {
+      ch = FileChannel.open(Paths.get(snapshotName(fname)), StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+    try {
+      if (ch.size() < HEADER_SIZE || ch.size() > Integer.MAX_VALUE) {
+        return null;
+      }
+      MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+      for (int i = 0; i < MAGIC.length; i++) {
+        if (buf.get(i) != MAGIC[i]) {
+          return null;
+        }
+      }
+      if (buf.getInt(4) != VERSION || buf.getLong(8) != key) {
+        return null;
+      }
+      int size = buf.getInt(16);
+      int bits = buf.getInt(20);
+      int labelMode = buf.getInt(24);
+      long numCells = (long) size * size;
+      long weightBytes = (bits == 4) ? (numCells + 1) / 2 : 4 * numCells;
+      // cell ids are ints, so larger mazes cannot be graphed
+      if (size < 0 || numCells > Integer.MAX_VALUE || (bits != 4 && bits != 32) ||
+          (labelMode != 0 && labelMode != 1) || HEADER_SIZE + weightBytes > ch.size()) {
+        return null;
+      }
+      buf.position(HEADER_SIZE);
+      buf.limit(HEADER_SIZE + (int) weightBytes);
+      GridGraph grid;
+      if (bits == 4) {
+        grid = new GridGraph(size, buf.slice());
+      } else {
+        grid = new GridGraph(size, buf.slice().asIntBuffer());
+      }
+      buf.limit((int) ch.size());
+      buf.position(HEADER_SIZE + (int) weightBytes);
+      LabelIndex labelIndex;
+      if (labelMode == 0) {
+        labelIndex = new LabelIndex((int) numCells);
+      } else {
+        String[] labels = new String[(int) numCells];
+        for (int id = 0; id < labels.length; id++) {
+          // a cut or damaged file is parsed again rather than trusted
+          if (buf.remaining() < 4) {
+            return null;
+          }
+          int length = buf.getInt();
+          if (length < 0 || length > buf.remaining()) {
+            return null;
+          }
+          byte[] bytes = new byte[length];
+          buf.get(bytes);
+          labels[id] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        labelIndex = new LabelIndex(labels);
+      }
+      return new MazeSnapshot(grid, labelIndex);
+    } finally {
+      ch.close();
+    }
+  }
+
+  /**********
+   * Saves the compiled form of a text file. The snapshot is written
+   * to a temporary file and moved into place, so a concurrent load
+   * never sees half of it; if writing or moving fails the temporary
+   * file is deleted. The file gets the default permissions for new
+   * files, so snapshots saved by one user can be read by others. Weights too large to map in one piece are not
+   * saved
+   * @param maze text file name, its key from keyOf, its weighted
+   *        graph and labels
+   **/
+  public static void save(String fname, long key, GridGraph grid, LabelIndex labelIndex)
+      throws IOException {
+    int numCells = grid.getNumCells();
+    boolean nibbles = grid.getMaxWeight() <= 15;
+    long weightBytes = nibbles ? (numCells + 1L) / 2 : 4L * numCells;
+    if (HEADER_SIZE + weightBytes > Integer.MAX_VALUE) {
+      return;
+    }
+    Path dst = Paths.get(snapshotName(fname));
+    Path tmp = createTempFileFor(dst);
+    try {
+      DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(tmp.toFile()), 1 << 16));
+      try {
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(key);
+        out.writeInt(grid.getSize());
+        out.writeInt(nibbles ? 4 : 32);
+        out.writeInt(labelIndex.isDecoded() ? 0 : 1);
+        if (nibbles) {
+          for (int i = 0; i < numCells; i += 2) {
+            int hi = (i + 1 < numCells) ? grid.getWeight(i + 1) : 0;
+            out.write(grid.getWeight(i) | (hi << 4));
+          }
+        } else {
+          for (int i = 0; i < numCells; i++) {
+            out.writeInt(grid.getWeight(i));
+          }
+        }
+        if (!labelIndex.isDecoded()) {
+          for (int id = 0; id < numCells; id++) {
+            byte[] bytes = labelIndex.getLabel(id).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+          }
+        }
+      } finally {
+        out.close();
+      }
+      Files.move(tmp, dst, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      // leave no half-written file next to the maze
+      try {
+        Files.deleteIfExists(tmp);
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+  }
+
+  /**********
+   * helper function for save and Landmarks.save
+   * Files.createTempFile would make the file readable by its owner
+   * only, and the file it is moved to would keep that
+   * @param the file to be written through the temporary file
+   * @return a new empty file next to it, with default permissions
+   **/
+  static Path createTempFileFor(Path dst) throws IOException {
+    Path dir = dst.toAbsolutePath().getParent();
+    String name = dst.getFileName().toString();
+    while (true) {
+      long r = ThreadLocalRandom.current().nextLong();
+      try {
+        return Files.createFile(dir.resolve(name + Long.toHexString(r) + ".tmp"));
+      } catch (FileAlreadyExistsException e) {
+        // another writer picked the same name, so try another
+      }
+    }
+  }
+}
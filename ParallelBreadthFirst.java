@@ -0,0 +1,152 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Level-synchronous parallel BFS on a search graph. Each frontier is
+ * split into chunks that are expanded on a ForkJoinPool. A cell is
+ * claimed by a compare-and-set on its parent entry, so exactly one
+ * chunk adds it to the next frontier; every chunk collects its new
+ * cells in its own buffer and the buffers are concatenated after the
+ * level, so no lock is ever taken.
+ *
+ * Small frontiers are expanded on the calling thread, which keeps
+ * short queries as cheap as a serial BFS.
+ *********************/
+
+public class ParallelBreadthFirst {
+
+  // frontiers smaller than this are expanded serially
+  private static final int SERIAL_THRESHOLD = 8192;
+  // number of frontier cells one task expands
+  private static final int CHUNK_SIZE = 2048;
+
+  private SearchGraph grid;
+  private ForkJoinPool pool;
+
+  /**********
+   * creates a parallel BFS over grid that runs its tasks on pool
+   **/
+  public ParallelBreadthFirst(SearchGraph grid, ForkJoinPool pool) {
+    this.grid = grid;
+    this.pool = pool;
+  }
+
+  /**********
+   * BFS between two vertices, expanding large levels in parallel
+   * @Param start and end vertex ids
+   * @Return vertex ids along a path with the fewest edges, empty if
+   * there is none
+   **/
+  public int[] search(int start, int end) {
+    // parent + 1 of every claimed cell, 0 while it is unclaimed
+    AtomicIntegerArray parent = new AtomicIntegerArray(this.grid.getNumNodes());
+    parent.set(start, start + 1);
+    int[] frontier = new int[] {start};
+    int size = 1;
+    while (size != 0 && parent.get(end) == 0) {
+      if (size < SERIAL_THRESHOLD) {
+        frontier = expand(frontier, 0, size, parent);
+      } else {
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int[][] parts = new int[chunks][];
+        this.pool.invoke(new ExpandTask(frontier, size, 0, chunks, parts, parent));
+        frontier = concat(parts);
+      }
+      size = frontier.length;
+    }
+    if (parent.get(end) == 0) {
+      return new int[0];
+    }
+    int length = 1;
+    for (int v = end; v != start; v = parent.get(v) - 1) {
+      length++;
+    }
+    int[] path = new int[length];
+    for (int v = end; length > 0; v = parent.get(v) - 1) {
+      path[--length] = v;
+    }
+    return path;
+  }
+
+  /**********
+   * helper function for search and ExpandTask
+   * claims the unvisited neighbors of frontier[from .. to)
+   * @Return the newly claimed cells
+   **/
+  private int[] expand(int[] frontier, int from, int to, AtomicIntegerArray parent) {
+    int[] out = new int[Math.max(4, 2 * (to - from))];
+    int n = 0;
+    int[] nbrs = new int[this.grid.getMaxDegree()];
+    for (int i = from; i < to; i++) {
+      int u = frontier[i];
+      int count = this.grid.getNeighbors(u, nbrs);
+      for (int j = 0; j < count; j++) {
+        int nb = nbrs[j];
+        if (parent.get(nb) == 0 && parent.compareAndSet(nb, 0, u + 1)) {
+          if (n == out.length) {
+            out = java.util.Arrays.copyOf(out, 2 * n);
+          }
+          out[n++] = nb;
+        }
+      }
+    }
+    return java.util.Arrays.copyOf(out, n);
+  }
+
+  /**********
+   * helper function for search
+   * @Return all parts joined into one array
+   **/
+  private static int[] concat(int[][] parts) {
+    int total = 0;
+    for (int i = 0; i < parts.length; i++) {
+      total += parts[i].length;
+    }
+    int[] all = new int[total];
+    int at = 0;
+    for (int i = 0; i < parts.length; i++) {
+      System.arraycopy(parts[i], 0, all, at, parts[i].length);
+      at += parts[i].length;
+    }
+    return all;
+  }
+
+  /**********
+   * Expands the frontier chunks [lo, hi), splitting the range in half
+   * until it is a single chunk; chunk k writes its cells to parts[k]
+   **/
+  private class ExpandTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private int[] frontier;
+    private int size;
+    private int lo;
+    private int hi;
+    private int[][] parts;
+    private AtomicIntegerArray parent;
+
+    ExpandTask(int[] frontier, int size, int lo, int hi, int[][] parts,
+               AtomicIntegerArray parent) {
+      this.frontier = frontier;
+      this.size = size;
+      this.lo = lo;
+      this.hi = hi;
+      this.parts = parts;
+      this.parent = parent;
+    }
+
+    protected void compute() {
+      if (this.hi - this.lo == 1) {
+        int from = this.lo * CHUNK_SIZE;
+        int to = Math.min(from + CHUNK_SIZE, this.size);
+        this.parts[this.lo] = expand(this.frontier, from, to, this.parent);
+        return;
+      }
+      int mid = (this.lo + this.hi) >>> 1;
+      invokeAll(new ExpandTask(this.frontier, this.size, this.lo, mid, this.parts, this.parent),
+                new ExpandTask(this.frontier, this.size, mid, this.hi, this.parts, this.parent));
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Per-query search state for graphs whose vertices are int ids.
+ * Holds the distance and predecessor of every reached vertex in
+ * primitive arrays, so searches never write to the graph itself and
+ * any number of them can run on the same graph at once, each with
+ * its own context.
+ *
+ * A context can be reused for many queries. reset() starts a new
+ * query in O(1) by bumping an epoch counter instead of clearing the
+ * arrays: an entry only counts if its stamp matches the current epoch.
+ *********************/
+
+public class SearchContext {
+
+  // number of vertex ids this context can hold
+  private int numNodes;
+  // best known distance of every reached vertex
+  private long[] dist;
+  // vertex we reached every vertex from, -1 for the start
+  private int[] pred;
+  // epoch in which each vertex was last reached / closed
+  private int[] reachedStamp;
+  private int[] closedStamp;
+  private int epoch;
+  // queue or stack space for the search, allocated on first use
+  private int[] scratch;
+  // priority queue for weighted searches, allocated on first use
+  private IndexedMinHeap heap;
+  private BucketQueue buckets;
+
+  /**********
+   * creates an empty context for vertex ids 0 .. numNodes - 1
+   **/
+  public SearchContext(int numNodes) {
+    this.numNodes = numNodes;
+    this.dist = new long[numNodes];
+    this.pred = new int[numNodes];
+    this.reachedStamp = new int[numNodes];
+    this.closedStamp = new int[numNodes];
+    this.epoch = 1;
+  }
+
+  /**********
+   * @return number of vertex ids this context can hold
+   **/
+  public int getNumNodes() {
+    return this.numNodes;
+  }
+
+  /**********
+   * forgets every reached and closed vertex, ready for a new query
+   **/
+  public void reset() {
+    this.epoch++;
+    if (this.epoch == Integer.MAX_VALUE) {
+      // stamps would wrap around, so clear them for real once
+      java.util.Arrays.fill(this.reachedStamp, 0);
+      java.util.Arrays.fill(this.closedStamp, 0);
+      this.epoch = 1;
+    }
+  }
+
+  /**********
+   * @return whether v has been reached in the current query
+   **/
+  public boolean isReached(int v) {
+    return this.reachedStamp[v] == this.epoch;
+  }
+
+  /**********
+   * records that v was reached from p with the given distance,
+   * replacing anything recorded for v earlier in this query
+   * @param vertex, its distance, its predecessor (-1 for the start)
+   **/
+  public void reach(int v, long d, int p) {
+    this.reachedStamp[v] = this.epoch;
+    this.dist[v] = d;
+    this.pred[v] = p;
+  }
+
+  /**********
+   * @return the recorded distance of v, or Long.MAX_VALUE if v has
+   *         not been reached in the current query
+   **/
+  public long getDistance(int v) {
+    return this.reachedStamp[v] == this.epoch ? this.dist[v] : Long.MAX_VALUE;
+  }
+
+  /**********
+   * @return the predecessor of a reached vertex, -1 for the start
+   **/
+  public int getPredecessor(int v) {
+    return this.pred[v];
+  }
+
+  /**********
+   * @return whether v has been closed (settled) in the current query
+   **/
+  public boolean isClosed(int v) {
+    return this.closedStamp[v] == this.epoch;
+  }
+
+  /**********
+   * marks v as closed (settled) in the current query
+   **/
+  public void close(int v) {
+    this.closedStamp[v] = this.epoch;
+  }
+
+  /**********
+   * @return an int array of numNodes entries the search may use as
+   *         its queue or stack. Its contents are not preserved.
+   **/
+  public int[] getScratch() {
+    if (this.scratch == null) {
+      this.scratch = new int[this.numNodes];
+    }
+    return this.scratch;
+  }
+
+  /**********
+   * @return an empty heap for ids 0 .. numNodes - 1, shared by every
+   *         query run with this context
+   **/
+  public IndexedMinHeap getHeap() {
+    if (this.heap == null) {
+      this.heap = new IndexedMinHeap(this.numNodes);
+    } else {
+      this.heap.clear();
+    }
+    return this.heap;
+  }
+
+  /**********
+   * @return an empty bucket queue for ids 0 .. numNodes - 1 and edge
+   *         costs up to maxEdgeCost, shared by every query run with
+   *         this context
+   **/
+  public BucketQueue getBucketQueue(int maxEdgeCost) {
+    if (this.buckets == null || this.buckets.getMaxEdgeCost() != maxEdgeCost) {
+      this.buckets = new BucketQueue(this.numNodes, maxEdgeCost);
+    } else {
+      this.buckets.clear();
+    }
+    return this.buckets;
+  }
+
+  /**********
+   * Rebuilds the path to a reached vertex by walking predecessors
+   * @param the last vertex of the path
+   * @return vertex ids from the start to end, or an empty array if
+   *         end was not reached in the current query
+   **/
+  public int[] getPath(int end) {
+    if (!isReached(end)) {
+      return new int[0];
+    }
+    int length = 0;
+    for (int v = end; v != -1; v = this.pred[v]) {
+      length++;
+    }
+    int[] path = new int[length];
+    for (int v = end; v != -1; v = this.pred[v]) {
+      path[--length] = v;
+    }
+    return path;
+  }
+}
@@ -0,0 +1,45 @@
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * An undirected graph with non-negative edge costs whose vertices are
+ * the ints 0 .. getNumNodes() - 1, as the solvers in GraphSearch see
+ * it. Implemented by the maze grid itself and by its corridor-
+ * contracted form, so every solver runs on either.
+ *********************/
+
+public interface SearchGraph {
+
+  /**********
+   * @return number of vertex ids; search contexts need this many slots
+   **/
+  public int getNumNodes();
+
+  /**********
+   * @return the most neighbors any vertex has, the room getNeighbors
+   *         needs
+   **/
+  public int getMaxDegree();
+
+  /**********
+   * Writes the neighbors of a vertex into out
+   * @param vertex id, an array with room for getMaxDegree() ids
+   * @return the number of neighbors written
+   **/
+  public int getNeighbors(int v, int[] out);
+
+  /**********
+   * @return the cost of the edge between two adjacent vertices
+   **/
+  public long getEdgeCost(int u, int v);
+
+  /**********
+   * @return an upper bound on the cost of any edge
+   **/
+  public long getMaxEdgeCost();
+
+  /**********
+   * @return a lower bound on the cost of any path between two
+   *         vertices that never overestimates and is consistent, for A*
+   **/
+  public long getCostLowerBound(int u, int v);
+}
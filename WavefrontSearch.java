@@ -0,0 +1,157 @@
+/*********************
+ * @Authors: Angel Villa, Qimeng Yu
+ *
+ * Bit-parallel BFS on a grid graph. Every row of the maze is packed
+ * into long words, one bit per cell, so a single word operation
+ * advances the BFS wavefront across 64 cells at once: the next layer
+ * is the current one shifted left, right, up and down, ANDed with the
+ * open cells and with the cells not yet visited.
+ *
+ * Only the BFS layer of each cell is recorded; the path is traced
+ * back from the goal by stepping to any neighbor one layer closer to
+ * the start. Weights are ignored, so the path has the fewest steps.
+ *********************/
+
+public class WavefrontSearch {
+
+  private GridGraph grid;
+  // width, or height of the grid
+  private int size;
+  // number of long words per row
+  private int words;
+  // open cells, row r occupying words [r * words, (r + 1) * words)
+  private long[] open;
+
+  /**********
+   * packs the open cells of a grid into row bitmaps
+   **/
+  public WavefrontSearch(GridGraph grid) {
+    this.grid = grid;
+    this.size = grid.getSize();
+    this.words = (this.size + 63) >>> 6;
+    this.open = new long[this.size * this.words];
+    for (int r = 0; r < this.size; r++) {
+      for (int c = 0; c < this.size; c++) {
+        if (grid.isOpen(grid.cellId(r, c))) {
+          this.open[r * this.words + (c >>> 6)] |= 1L << (c & 63);
+        }
+      }
+    }
+  }
+
+  /**********
+   * BFS between two cells by expanding whole bitmap layers. The
+   * layer of every visited cell is stored as its distance in ctx
+   * @Param start and end cell ids, context to search with
+   * @Return cell ids along a path with the fewest steps, empty if
+   * there is none
+   **/
+  public int[] search(int start, int end, SearchContext ctx) {
+    ctx.reset();
+    int endWord = this.grid.rowOf(end) * this.words + (this.grid.colOf(end) >>> 6);
+    long endBit = 1L << (this.grid.colOf(end) & 63);
+    long[] frontier = new long[this.open.length];
+    long[] visited = new long[this.open.length];
+    long[] next = new long[this.open.length];
+    frontier[this.grid.rowOf(start) * this.words + (this.grid.colOf(start) >>> 6)] |=
+        1L << (this.grid.colOf(start) & 63);
+    System.arraycopy(frontier, 0, visited, 0, frontier.length);
+    ctx.reach(start, 0, -1);
+    // rows the current frontier occupies
+    int lo = this.grid.rowOf(start);
+    int hi = lo;
+    long layer = 0;
+    while (lo <= hi) {
+      if ((visited[endWord] & endBit) != 0) {
+        return traceBack(end, ctx);
+      }
+      layer++;
+      int nextLo = Integer.MAX_VALUE;
+      int nextHi = -1;
+      for (int r = Math.max(lo - 1, 0); r <= Math.min(hi + 1, this.size - 1); r++) {
+        if (expandRow(r, frontier, visited, next, layer, ctx)) {
+          nextLo = Math.min(nextLo, r);
+          nextHi = r;
+        }
+      }
+      // clear the old frontier rows, then swap in the new layer
+      for (int r = lo; r <= hi; r++) {
+        java.util.Arrays.fill(frontier, r * this.words, (r + 1) * this.words, 0L);
+      }
+      long[] t = frontier;
+      frontier = next;
+      next = t;
+      lo = nextLo;
+      hi = nextHi;
+    }
+    return new int[0];
+  }
+
+  /**********
+   * helper function for search
+   * computes row r of the next layer from the frontier rows around
+   * it, marks the new cells visited and records their layer
+   * @Return whether any new cell was reached in row r
+   **/
+  private boolean expandRow(int r, long[] frontier, long[] visited, long[] next,
+                            long layer, SearchContext ctx) {
+    int base = r * this.words;
+    boolean any = false;
+    for (int w = 0; w < this.words; w++) {
+      int i = base + w;
+      long f = frontier[i];
+      // cells whose left or right neighbor is in the frontier
+      long sides = (f << 1) | (f >>> 1);
+      if (w > 0) {
+        sides |= frontier[i - 1] >>> 63;
+      }
+      if (w < this.words - 1) {
+        sides |= frontier[i + 1] << 63;
+      }
+      long reach = sides;
+      if (r > 0) {
+        reach |= frontier[i - this.words];
+      }
+      if (r < this.size - 1) {
+        reach |= frontier[i + this.words];
+      }
+      long fresh = reach & this.open[i] & ~visited[i];
+      next[i] = fresh;
+      if (fresh == 0) {
+        continue;
+      }
+      any = true;
+      visited[i] |= fresh;
+      int firstId = r * this.size + (w << 6);
+      while (fresh != 0) {
+        ctx.reach(firstId + Long.numberOfTrailingZeros(fresh), layer, -1);
+        fresh &= fresh - 1;
+      }
+    }
+    return any;
+  }
+
+  /**********
+   * helper function for search
+   * walks from end back to the start, each step moving to a
+   * neighbor whose layer is one lower
+   * @Return cell ids from the start to end
+   **/
+  private int[] traceBack(int end, SearchContext ctx) {
+    int[] path = new int[(int) ctx.getDistance(end) + 1];
+    int[] nbrs = new int[4];
+    int v = end;
+    for (int k = path.length - 1; k > 0; k--) {
+      path[k] = v;
+      int count = this.grid.getNeighbors(v, nbrs);
+      for (int i = 0; i < count; i++) {
+        if (ctx.isReached(nbrs[i]) && ctx.getDistance(nbrs[i]) == k - 1) {
+          v = nbrs[i];
+          break;
+        }
+      }
+    }
+    path[0] = v;
+    return path;
+  }
+}